@@ -0,0 +1,28 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Param;
+
+import benchmarks.HarnessBenchmark;
+import benchmarks.ParallelHarnessBenchmark;
+
+// JMH's @Param lists are copied out by hand, so check them against the harness
+class HarnessBenchmarkCasesTest {
+
+    @Test
+    void sequentialCasesMatchTheHarness() throws NoSuchFieldException {
+        assertEquals(BenchmarkHarness.caseNames(false), paramValues(HarnessBenchmark.class));
+    }
+
+    @Test
+    void parallelCasesMatchTheHarness() throws NoSuchFieldException {
+        assertEquals(BenchmarkHarness.caseNames(true), paramValues(ParallelHarnessBenchmark.class));
+    }
+
+    private static List<String> paramValues(Class<?> benchmark) throws NoSuchFieldException {
+        return Arrays.asList(benchmark.getField("benchmarkCase").getAnnotation(Param.class).value());
+    }
+}
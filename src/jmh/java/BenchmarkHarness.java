@@ -0,0 +1,532 @@
+/*
+Benchmarking the Naive and Optimized Versions:
+
+Every algorithm in this project comes in a tutorial version and one or more faster ones, and the only way to know the
+faster ones really are faster (and stay that way) is to measure them. Measuring Java code fairly takes some care:
+
+Warm up first. The JIT compiler only optimizes a method after it has run many times, so the first calls are much slower
+than the rest and have to be thrown away.
+Use every result. If nothing reads the answer, the JIT may skip computing it. Every answer is folded into a volatile
+field.
+Measure for a fixed time, not a fixed number of calls, so a fast case runs many times and a slow one still finishes.
+
+For every case and input size, the harness reports:
+
+ops/s and ns/op: throughput
+bytes/op: memory allocated per call, from com.sun.management.ThreadMXBean, summed over every thread (so the pool threads
+of the parallel cases count too)
+speedup: for the parallel cases, the throughput on 1, 2, 4, ... threads compared to the first thread count (the scaling
+curve)
+
+The tutorial files can't be compiled together (they declare the same classes several times), so the tutorial versions are
+copied in below, unchanged apart from returning their answer instead of printing it.
+
+The harness is only benchmark code, so it lives with the JMH benchmarks in src/jmh/java and is built by the jmh profile.
+
+Usage: mvn -B -Pjmh package, then
+       java --add-modules jdk.incubator.vector -cp target/benchmarks.jar BenchmarkHarness [--filter=text]
+            [--time=milliseconds] [--threads=1,2,4] [--csv] [--baseline=results.csv] [--tolerance=0.10]
+
+(without --add-modules jdk.incubator.vector, the "vector kernel" case measures the scalar fallback). For JMH's own
+numbers, with its GC profiler for allocation rates, run java -jar target/benchmarks.jar -prof gc from the same jar.
+
+--csv prints the results as comma-separated lines. Save them, and a later run with --baseline=<that file> flags every
+case that got more than --tolerance slower (and exits with status 1), which is how a regression gets caught.
+*/
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+public class BenchmarkHarness {
+
+    // one call of the code being measured; returns its answer so it can't be optimized away
+    interface Workload extends LongSupplier {
+        long run();
+
+        @Override
+        default long getAsLong() {
+            return run();
+        }
+    }
+
+    // builds a workload for an input size (the inputs are created here, outside the measurement)
+    interface Setup {
+        Workload create(int size, ForkJoinPool pool);
+    }
+
+    static final class Case {
+        final String group;
+        final String variant;
+        final int sizes[];
+        final boolean parallel;
+        final Setup setup;
+
+        Case(String group, String variant, int sizes[], boolean parallel, Setup setup) {
+            this.group = group;
+            this.variant = variant;
+            this.sizes = sizes;
+            this.parallel = parallel;
+            this.setup = setup;
+        }
+    }
+
+    static final class Result {
+        final double nanosPerOp;
+        final double bytesPerOp;
+
+        Result(double nanosPerOp, double bytesPerOp) {
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    private static volatile long sink;
+
+    // every naive/optimized pair; "size" means items for knapsack, bars for rainwater, the limit for the sieves, and n
+    // for Fibonacci
+    static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+
+        int fewItems[] = { 16, 20, 24 };
+        cases.add(new Case("knapsack", "tutorial recursive", fewItems, false, (size, pool) -> {
+            int items[][] = items(size, 42);
+            return () -> recursiveKnapSack(capacity(items[0]), items[0], items[1], size);
+        }));
+        int manyItems[] = { 100, 1_000 };
+        cases.add(new Case("knapsack", "tutorial matrix", manyItems, false, (size, pool) -> {
+            int items[][] = items(size, 42);
+            return () -> VectorKnapsack.matrixKnapSack(capacity(items[0]), items[0], items[1]);
+        }));
+        cases.add(new Case("knapsack", "rolling row", manyItems, false, (size, pool) -> {
+            int items[][] = items(size, 42);
+            return () -> RollingKnapsack.knapSack(capacity(items[0]), items[0], items[1]);
+        }));
+        cases.add(new Case("knapsack", "vector kernel", manyItems, false, (size, pool) -> {
+            int items[][] = items(size, 42);
+            return () -> VectorKnapsack.knapSack(capacity(items[0]), items[0], items[1]);
+        }));
+        cases.add(new Case("knapsack", "fork-join rows", manyItems, true, (size, pool) -> {
+            int items[][] = items(size, 42);
+            ParallelKnapsack knapsack = new ParallelKnapsack(pool, ParallelKnapsack.DEFAULT_BLOCK_SIZE,
+                    ParallelKnapsack.DEFAULT_SEQUENTIAL_CUTOFF);
+            return () -> knapsack.knapSack(capacity(items[0]), items[0], items[1]);
+        }));
+        cases.add(new Case("knapsack", "memoized recursive", fewItems, false, (size, pool) -> {
+            int items[][] = items(size, 42);
+            // a fresh memo every call, so this measures solving rather than looking up
+            return () -> new MemoizedSolvers.MemoizedKnapsack(items[0], items[1], 1 << 16).knapSack(capacity(items[0]));
+        }));
+
+        int fewBars[] = { 1_000, 10_000 };
+        int manyBars[] = { 1_000, 10_000, 1_000_000, 10_000_000 };
+        cases.add(new Case("rainwater", "tutorial naive", fewBars, false, (size, pool) -> {
+            int heights[] = heights(size, 7);
+            return () -> naiveSolution(heights);
+        }));
+        cases.add(new Case("rainwater", "tutorial two pointers", manyBars, false, (size, pool) -> {
+            int heights[] = heights(size, 7);
+            return () -> efficientSolution(heights);
+        }));
+        cases.add(new Case("rainwater", "fork-join blocks", manyBars, true, (size, pool) -> {
+            int heights[] = heights(size, 7);
+            ParallelRainWater rainWater = new ParallelRainWater(pool, ParallelRainWater.DEFAULT_BLOCK_SIZE);
+            return () -> rainWater.totalWater(heights);
+        }));
+        cases.add(new Case("rainwater", "segment tree update+query", manyBars, false, (size, pool) -> {
+            int heights[] = heights(size, 7);
+            RainWaterIndex index = new RainWaterIndex(heights);
+            Random random = new Random(7);
+            return () -> {
+                index.updateHeight(random.nextInt(size), random.nextInt(1_000));
+                return index.totalWater();
+            };
+        }));
+
+        int limits[] = { 1_000_000, 10_000_000, 100_000_000 };
+        cases.add(new Case("sieve", "tutorial step two (every i from 2i)", limits, false, (size, pool) ->
+                () -> tutorialSieveStepTwo(size)));
+        cases.add(new Case("sieve", "tutorial boolean[] + List<Integer>", limits, false, (size, pool) ->
+                () -> tutorialSieve(size)));
+        cases.add(new Case("sieve", "bitset + IntList", limits, false, (size, pool) -> () -> {
+            PrimitiveSinks.IntList primes = new PrimitiveSinks.IntList();
+            BitsetIndices.findTrueIndices(BitsetIndices.sieve(size), size + 1, primes);
+            return primes.size();
+        }));
+        cases.add(new Case("sieve", "mod-30 wheel", limits, false, (size, pool) -> () -> new WheelSieve(size).count()));
+        cases.add(new Case("sieve", "segmented stream", limits, false, (size, pool) ->
+                () -> SegmentedPrimeIterator.primes(0, size + 1L).count()));
+        cases.add(new Case("sieve", "parallel segmented", limits, true, (size, pool) -> {
+            ParallelPrimeSieve sieve = new ParallelPrimeSieve(pool, SegmentedPrimeIterator.DEFAULT_SEGMENT_BITS);
+            return () -> sieve.count(0, size + 1L);
+        }));
+
+        int flags[] = { 1_000_000, 10_000_000 };
+        cases.add(new Case("true indices", "tutorial ArrayList", flags, false, (size, pool) -> {
+            boolean values[] = flags(size, 3);
+            return () -> findTrueIndices(values).length;
+        }));
+        cases.add(new Case("true indices", "bitset word scan + IntList", flags, false, (size, pool) -> {
+            long words[] = BitsetIndices.toBitset(flags(size, 3));
+            return () -> {
+                PrimitiveSinks.IntList indices = new PrimitiveSinks.IntList();
+                BitsetIndices.findTrueIndices(words, size, indices);
+                return indices.size();
+            };
+        }));
+
+        int smallN[] = { 20, 40 };
+        cases.add(new Case("fibonacci", "tutorial HashMap memo", smallN, false, (size, pool) ->
+                () -> fibMemo(size, new HashMap<Integer, Integer>())));
+        // a fresh memo every call, like the tutorial's fresh HashMap
+        cases.add(new Case("fibonacci", "fresh LongMemo", smallN, false, (size, pool) ->
+                () -> MemoizedSolvers.fibMemo(size, new LongMemo(size + 1, 1))));
+        // the shared memo after warmup: every call is a single lookup
+        cases.add(new Case("fibonacci", "shared LongMemo (hit path)", smallN, false, (size, pool) ->
+                () -> MemoizedSolvers.fibMemo(size)));
+        cases.add(new Case("fibonacci", "fast doubling mod m", smallN, false, (size, pool) ->
+                () -> FibonacciEngine.fibMod(size, 1_000_000_007L)));
+        int largeN[] = { 10_000, 1_000_000 };
+        cases.add(new Case("fibonacci", "fast doubling BigInteger", largeN, false, (size, pool) ->
+                () -> FibonacciEngine.fib(size).bitLength()));
+        return cases;
+    }
+
+    /*
+    The workload of one case, named "group/variant/size" (for example "knapsack/rolling row/1000"), with its inputs
+    already built. This is how the JMH benchmarks in src/jmh/java reuse the cases above: JMH needs its benchmarks in a
+    named package, which can't see this one, so they look this method up by reflection once and then only call
+    getAsLong().
+    */
+    public static LongSupplier workload(String name, ForkJoinPool pool) {
+        for (Case c : cases()) {
+            for (int size : c.sizes) {
+                if (name.equals(c.group + "/" + c.variant + "/" + size)) {
+                    return c.setup.create(size, pool);
+                }
+            }
+        }
+        throw new IllegalArgumentException("no such benchmark case: " + name);
+    }
+
+    // the "group/variant/size" names of the parallel cases, or of all the others, in order
+    static List<String> caseNames(boolean parallel) {
+        List<String> names = new ArrayList<>();
+        for (Case c : cases()) {
+            if (c.parallel == parallel) {
+                for (int size : c.sizes) {
+                    names.add(c.group + "/" + c.variant + "/" + size);
+                }
+            }
+        }
+        return names;
+    }
+
+    // runs workload for warmupNanos, then counts calls and allocated bytes for measureNanos
+    static Result measure(Workload workload, long warmupNanos, long measureNanos) {
+        long accumulated = 0;
+        long end = System.nanoTime() + warmupNanos;
+        do {
+            accumulated += workload.run();
+        } while (System.nanoTime() < end);
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long operations = 0;
+        long now;
+        do {
+            accumulated += workload.run();
+            operations++;
+            now = System.nanoTime();
+        } while (now - start < measureNanos);
+        long allocated = allocatedBytes() - allocatedBefore;
+        sink += accumulated;
+        return new Result((double) (now - start) / operations, (double) allocated / operations);
+    }
+
+    // bytes allocated so far by every live thread
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String filter = "";
+        long millis = 1_000;
+        int threadCounts[] = defaultThreadCounts();
+        boolean csv = false;
+        Path baselineFile = null;
+        double tolerance = 0.10;
+        for (String arg : args) {
+            if (arg.startsWith("--filter=")) {
+                filter = arg.substring("--filter=".length()).toLowerCase(Locale.ROOT);
+            } else if (arg.startsWith("--time=")) {
+                millis = Long.parseLong(arg.substring("--time=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                String counts[] = arg.substring("--threads=".length()).split(",");
+                threadCounts = new int[counts.length];
+                for (int k = 0; k < counts.length; k++) {
+                    threadCounts[k] = Integer.parseInt(counts[k].trim());
+                }
+            } else if (arg.equals("--csv")) {
+                csv = true;
+            } else if (arg.startsWith("--baseline=")) {
+                baselineFile = Path.of(arg.substring("--baseline=".length()));
+            } else if (arg.startsWith("--tolerance=")) {
+                tolerance = Double.parseDouble(arg.substring("--tolerance=".length()));
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        Map<String, Double> baseline = baselineFile == null ? new HashMap<>() : readBaseline(baselineFile);
+
+        if (csv) {
+            System.out.println("group,variant,size,threads,ops_per_s,ns_per_op,bytes_per_op,speedup");
+        } else {
+            System.out.printf("%-10s %-34s %12s %7s %14s %16s %14s %8s%n",
+                    "group", "variant", "size", "threads", "ops/s", "ns/op", "bytes/op", "speedup");
+        }
+        int regressions = 0;
+        for (Case c : cases()) {
+            if (!(c.group + " " + c.variant).toLowerCase(Locale.ROOT).contains(filter)) {
+                continue;
+            }
+            for (int size : c.sizes) {
+                double firstNanos = 0;
+                for (int threads : c.parallel ? threadCounts : new int[] { 1 }) {
+                    ForkJoinPool pool = new ForkJoinPool(threads);
+                    try {
+                        Result result = measure(c.setup.create(size, pool), millis * 500_000, millis * 1_000_000);
+                        if (firstNanos == 0) {
+                            firstNanos = result.nanosPerOp;
+                        }
+                        double speedup = firstNanos / result.nanosPerOp;
+                        print(c, size, threads, result, speedup, csv);
+                        Double before = baseline.get(key(c.group, c.variant, size, threads));
+                        if (before != null && result.nanosPerOp > before * (1 + tolerance)) {
+                            regressions++;
+                            System.out.printf("REGRESSION: %s / %s, size %d, %d threads: %.1f ns/op, was %.1f%n",
+                                    c.group, c.variant, size, threads, result.nanosPerOp, before);
+                        }
+                    } finally {
+                        pool.shutdown();
+                    }
+                }
+            }
+        }
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void print(Case c, int size, int threads, Result result, double speedup, boolean csv) {
+        double opsPerSecond = 1e9 / result.nanosPerOp;
+        if (csv) {
+            System.out.printf(Locale.ROOT, "%s,%s,%d,%d,%.3f,%.1f,%.1f,%.2f%n",
+                    c.group, c.variant, size, threads, opsPerSecond, result.nanosPerOp, result.bytesPerOp, speedup);
+        } else {
+            System.out.printf(Locale.ROOT, "%-10s %-34s %,12d %7d %,14.1f %,16.1f %,14.0f %8s%n",
+                    c.group, c.variant, size, threads, opsPerSecond, result.nanosPerOp, result.bytesPerOp,
+                    c.parallel ? String.format(Locale.ROOT, "%.2fx", speedup) : "");
+        }
+    }
+
+    // ns/op by case, from an earlier --csv run
+    private static Map<String, Double> readBaseline(Path file) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            String fields[] = line.split(",");
+            if (fields.length < 6 || fields[0].equals("group")) {
+                continue;
+            }
+            baseline.put(key(fields[0], fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3])),
+                    Double.parseDouble(fields[5]));
+        }
+        return baseline;
+    }
+
+    private static String key(String group, String variant, int size, int threads) {
+        return group + "/" + variant + "/" + size + "/" + threads;
+    }
+
+    // 1, 2, 4, ... up to the number of cores (and the number of cores itself)
+    private static int[] defaultThreadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        int result[] = new int[counts.size()];
+        for (int k = 0; k < result.length; k++) {
+            result[k] = counts.get(k);
+        }
+        return result;
+    }
+
+    // weights[] and values[] for size random items
+    private static int[][] items(int size, long seed) {
+        Random random = new Random(seed);
+        int weights[] = new int[size];
+        int values[] = new int[size];
+        for (int item = 0; item < size; item++) {
+            weights[item] = 1 + random.nextInt(1_000);
+            values[item] = random.nextInt(1_000);
+        }
+        return new int[][] { weights, values };
+    }
+
+    // room for about half the items
+    private static int capacity(int weights[]) {
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        return (int) (total / 2);
+    }
+
+    // about one flag in eight is true
+    private static boolean[] flags(int size, long seed) {
+        Random random = new Random(seed);
+        boolean flags[] = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            flags[i] = random.nextInt(8) == 0;
+        }
+        return flags;
+    }
+
+    private static int[] heights(int size, long seed) {
+        Random random = new Random(seed);
+        int heights[] = new int[size];
+        for (int i = 0; i < size; i++) {
+            heights[i] = random.nextInt(1_000);
+        }
+        return heights;
+    }
+
+    // the tutorial versions, as they appear in the lessons
+
+    static int recursiveKnapSack(int weightCap, int weights[], int values[], int i) {
+        if (i == 0 || weightCap == 0) {
+            return 0;
+        }
+        if (weights[i - 1] > weightCap) {
+            return recursiveKnapSack(weightCap, weights, values, i - 1);
+        } else {
+            return Math.max(values[i - 1] + recursiveKnapSack(weightCap - weights[i - 1], weights, values, i - 1),
+                    recursiveKnapSack(weightCap, weights, values, i - 1));
+        }
+    }
+
+    static int naiveSolution(int heights[]) {
+        int totalWater = 0;
+        for (int i = 0; i < heights.length - 1; i++) {
+            int leftBound = 0;
+            int rightBound = 0;
+            for (int j = 0; j <= i; j++) {
+                leftBound = Math.max(leftBound, heights[j]);
+            }
+            for (int j = i; j < heights.length; j++) {
+                rightBound = Math.max(rightBound, heights[j]);
+            }
+            totalWater += Math.min(leftBound, rightBound) - heights[i];
+        }
+        return totalWater;
+    }
+
+    static int efficientSolution(int heights[]) {
+        int totalWater = 0;
+        int leftPointer = 0;
+        int rightPointer = heights.length - 1;
+        int leftBound = 0;
+        int rightBound = 0;
+        while (leftPointer < rightPointer) {
+            if (heights[leftPointer] <= heights[rightPointer]) {
+                leftBound = Math.max(heights[leftPointer], leftBound);
+                totalWater += leftBound - heights[leftPointer];
+                leftPointer++;
+            } else {
+                rightBound = Math.max(heights[rightPointer], rightBound);
+                totalWater += rightBound - heights[rightPointer];
+                rightPointer--;
+            }
+        }
+        return totalWater;
+    }
+
+    // step two of the lesson: every i up to limit crosses out its multiples from 2i
+    static int tutorialSieveStepTwo(int limit) {
+        boolean output[] = new boolean[limit + 1];
+        for (int x = 0; x <= limit; x++) {
+            output[x] = true;
+        }
+        output[0] = false;
+        output[1] = false;
+        for (int i = 2; i <= limit; i++) {
+            if (output[i] == true) {
+                for (int j = i * 2; j <= limit; j = j + i) {
+                    output[j] = false;
+                }
+            }
+        }
+        return output[limit] ? 1 : 0;
+    }
+
+    static Object[] findTrueIndices(boolean arr[]) {
+        ArrayList<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] == true) {
+                result.add(i);
+            }
+        }
+        return result.toArray();
+    }
+
+    static int tutorialSieve(int limit) {
+        boolean output[] = new boolean[limit + 1];
+        for (int x = 0; x <= limit; x++) {
+            output[x] = true;
+        }
+        output[0] = false;
+        output[1] = false;
+        for (int i = 2; i <= Math.pow(limit, 0.5); i++) {
+            if (output[i] == true) {
+                for (int j = (int) Math.pow(i, 2); j <= limit; j = j + i) {
+                    output[j] = false;
+                }
+            }
+        }
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] == true) {
+                result.add(i);
+            }
+        }
+        return result.toArray().length;
+    }
+
+    static int fibMemo(int n, Map<Integer, Integer> map) {
+        if (n <= 1) {
+            return n;
+        }
+        if (map.containsKey(n)) {
+            return map.get(n);
+        }
+        int newNum = fibMemo(n - 1, map) + fibMemo(n - 2, map);
+        map.put(n, newNum);
+        return newNum;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+JMH Version of the Benchmark Harness:
+
+BenchmarkHarness measures every naive/optimized pair with its own simple loop. This runs the same cases under JMH, which
+takes more care over warmup, forks a fresh JVM per case, and can attach profilers (-prof gc for allocation rates).
+
+Build and run with:
+
+mvn -B -Pjmh package
+java -jar target/benchmarks.jar -prof gc
+java -jar target/benchmarks.jar HarnessBenchmark -p benchmarkCase="sieve/mod-30 wheel/100000000"
+
+Each case is named "group/variant/size", as in the harness's --csv output. The cases that run on a fork-join pool are in
+ParallelHarnessBenchmark instead, which repeats each of them for several pool sizes. JMH only takes constants for
+@Param, so the names are listed out by hand; HarnessBenchmarkCasesTest fails the jmh build if they drift from the
+harness's own list.
+*/
+package benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class HarnessBenchmark {
+
+    @Param({
+            "knapsack/tutorial recursive/16",
+            "knapsack/tutorial recursive/20",
+            "knapsack/tutorial recursive/24",
+            "knapsack/tutorial matrix/100",
+            "knapsack/tutorial matrix/1000",
+            "knapsack/rolling row/100",
+            "knapsack/rolling row/1000",
+            "knapsack/vector kernel/100",
+            "knapsack/vector kernel/1000",
+            "knapsack/memoized recursive/16",
+            "knapsack/memoized recursive/20",
+            "knapsack/memoized recursive/24",
+            "rainwater/tutorial naive/1000",
+            "rainwater/tutorial naive/10000",
+            "rainwater/tutorial two pointers/1000",
+            "rainwater/tutorial two pointers/10000",
+            "rainwater/tutorial two pointers/1000000",
+            "rainwater/tutorial two pointers/10000000",
+            "rainwater/segment tree update+query/1000",
+            "rainwater/segment tree update+query/10000",
+            "rainwater/segment tree update+query/1000000",
+            "rainwater/segment tree update+query/10000000",
+            "sieve/tutorial step two (every i from 2i)/1000000",
+            "sieve/tutorial step two (every i from 2i)/10000000",
+            "sieve/tutorial step two (every i from 2i)/100000000",
+            "sieve/tutorial boolean[] + List<Integer>/1000000",
+            "sieve/tutorial boolean[] + List<Integer>/10000000",
+            "sieve/tutorial boolean[] + List<Integer>/100000000",
+            "sieve/bitset + IntList/1000000",
+            "sieve/bitset + IntList/10000000",
+            "sieve/bitset + IntList/100000000",
+            "sieve/mod-30 wheel/1000000",
+            "sieve/mod-30 wheel/10000000",
+            "sieve/mod-30 wheel/100000000",
+            "sieve/segmented stream/1000000",
+            "sieve/segmented stream/10000000",
+            "sieve/segmented stream/100000000",
+            "true indices/tutorial ArrayList/1000000",
+            "true indices/tutorial ArrayList/10000000",
+            "true indices/bitset word scan + IntList/1000000",
+            "true indices/bitset word scan + IntList/10000000",
+            "fibonacci/tutorial HashMap memo/20",
+            "fibonacci/tutorial HashMap memo/40",
+            "fibonacci/fresh LongMemo/20",
+            "fibonacci/fresh LongMemo/40",
+            "fibonacci/shared LongMemo (hit path)/20",
+            "fibonacci/shared LongMemo (hit path)/40",
+            "fibonacci/fast doubling mod m/20",
+            "fibonacci/fast doubling mod m/40",
+            "fibonacci/fast doubling BigInteger/10000",
+            "fibonacci/fast doubling BigInteger/1000000"
+    })
+    public String benchmarkCase;
+
+    private LongSupplier workload;
+
+    // the solvers live in the unnamed package, which a benchmark in a named package can only reach by reflection. None
+    // of these cases runs on a pool, so they don't get one.
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        workload = (LongSupplier) Class.forName("BenchmarkHarness")
+                .getMethod("workload", String.class, ForkJoinPool.class)
+                .invoke(null, benchmarkCase, null);
+    }
+
+    // returning the answer hands it to JMH's blackhole, so it can't be optimized away
+    @Benchmark
+    public long run() {
+        return workload.getAsLong();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+JMH Version of the Parallel Benchmark Cases:
+
+The same as HarnessBenchmark, for the cases that split their work over a fork-join pool. Each one runs once for every
+pool size in threads, which gives JMH's version of the harness's scaling curve:
+
+java -jar target/benchmarks.jar ParallelHarnessBenchmark
+java -jar target/benchmarks.jar ParallelHarnessBenchmark -p threads=1,4 -p benchmarkCase="knapsack/fork-join rows/1000"
+
+A pool bigger than the machine's core count still runs, it just can't go any faster, which is worth seeing too.
+*/
+package benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ParallelHarnessBenchmark {
+
+    @Param({
+            "knapsack/fork-join rows/100",
+            "knapsack/fork-join rows/1000",
+            "rainwater/fork-join blocks/1000",
+            "rainwater/fork-join blocks/10000",
+            "rainwater/fork-join blocks/1000000",
+            "rainwater/fork-join blocks/10000000",
+            "sieve/parallel segmented/1000000",
+            "sieve/parallel segmented/10000000",
+            "sieve/parallel segmented/100000000"
+    })
+    public String benchmarkCase;
+
+    // the size of the pool handed to the case
+    @Param({ "1", "2", "4", "8", "16" })
+    public int threads;
+
+    private ForkJoinPool pool;
+    private LongSupplier workload;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        pool = new ForkJoinPool(threads);
+        workload = (LongSupplier) Class.forName("BenchmarkHarness")
+                .getMethod("workload", String.class, ForkJoinPool.class)
+                .invoke(null, benchmarkCase, pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long run() {
+        return workload.getAsLong();
+    }
+}
@@ -0,0 +1,365 @@
+/*
+A Batch Pipeline for Many Small Problems:
+
+Every algorithm here runs from a main() that prints to the console, so solving a million small problems would mean
+starting a million JVMs. BatchPipeline instead reads a stream of problems in a compact binary format, solves them on a
+pool of threads, and writes the answers back in the same format.
+
+Every problem and every answer is a frame:
+
+[int type][int length][length bytes of payload]          (little-endian)
+
+KNAPSACK     payload: [int weightCap][int n][n int weights][n int values]   answer: [long best value]
+RAINWATER    payload: [int n][n int heights]                                answer: [long water]
+PRIME_COUNT  payload: [long lo][long hi], hi - lo <= MAX_PRIME_SPAN         answer: [long primes in [lo, hi)]
+FIB_MOD      payload: [long n][long m]                                      answer: [long fib(n) mod m]
+ERROR        (answers only) payload: the problem's type as an int, then a UTF-8 message
+
+The answers come out in the same order as the problems, each with the type of the problem it answers (or ERROR).
+
+Decoding copies nothing. A file is memory-mapped, and each frame's payload becomes a ByteBuffer slice of the mapping
+(with IntBuffer views for the arrays), which the solvers read in place.
+
+Solving happens on a ForkJoinPool: a work-stealing pool, so a thread that runs out of problems takes some from a busier
+one. (Virtual threads would do too, but they aren't available before Java 21, and the problems don't block on anything
+anyway.) At most maxInFlight problems are waiting or being solved at any time. When the window is full, the reader stops
+and writes out the oldest answer first. That's backpressure: a slow pool slows the reader down instead of letting
+unfinished work pile up in memory, and it keeps the answers in order.
+*/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchPipeline {
+
+    static final int ERROR = 0;
+    static final int KNAPSACK = 1;
+    static final int RAINWATER = 2;
+    static final int PRIME_COUNT = 3;
+    static final int FIB_MOD = 4;
+
+    static final int HEADER_BYTES = 8;
+    static final int DEFAULT_MAX_IN_FLIGHT = 4096;
+
+    // a bigger capacity in a (possibly corrupt) frame would allocate gigabytes for its row
+    static final int MAX_KNAPSACK_CAPACITY = 1 << 26;
+
+    // sieving a wider range would tie a pool thread up for seconds (2^32 numbers take a few seconds on one core)
+    static final long MAX_PRIME_SPAN = 1L << 32;
+
+    // how much of a file is mapped at a time; no single frame may be bigger
+    static final long MAP_WINDOW = 1L << 30;
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+
+    public BatchPipeline() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public BatchPipeline(ForkJoinPool pool, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.pool = pool;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // solves every frame from input's position to its limit and writes the answers to output; returns how many
+    public long run(ByteBuffer input, WritableByteChannel output) throws IOException {
+        ByteBuffer frames = input.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try (Window window = new Window(output)) {
+            while (frames.hasRemaining()) {
+                window.submit(nextFrame(frames));
+            }
+            return window.finish();
+        }
+    }
+
+    // solves every frame in file, mapping it a window at a time
+    public long run(Path file, WritableByteChannel output) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                Window window = new Window(output)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                // a mapping stays valid (and so do the slices of it still being solved) after the next one is made
+                long mapped = Math.min(MAP_WINDOW, size - position);
+                ByteBuffer frames = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                while (frames.remaining() >= HEADER_BYTES
+                        && HEADER_BYTES + (long) frames.getInt(frames.position() + 4) <= frames.remaining()) {
+                    window.submit(nextFrame(frames));
+                }
+                if (frames.position() == 0 && position + mapped < size) {
+                    throw new IOException("a frame at byte " + position + " is bigger than " + MAP_WINDOW + " bytes");
+                }
+                if (position + mapped == size && frames.hasRemaining()) {
+                    nextFrame(frames); // throws: the file ends in the middle of a frame
+                }
+                position += frames.position();
+            }
+            return window.finish();
+        }
+    }
+
+    // the next frame as a type and a zero-copy payload slice; advances frames past it
+    private static Frame nextFrame(ByteBuffer frames) throws IOException {
+        int start = frames.position();
+        if (frames.remaining() < HEADER_BYTES) {
+            throw new IOException("truncated frame header at byte " + start);
+        }
+        int type = frames.getInt(start);
+        int length = frames.getInt(start + 4);
+        if (length < 0 || length > frames.remaining() - HEADER_BYTES) {
+            throw new IOException("frame at byte " + start + " claims " + length + " bytes, but only "
+                    + (frames.remaining() - HEADER_BYTES) + " are left");
+        }
+        ByteBuffer payload = frames.slice(start + HEADER_BYTES, length).order(ByteOrder.LITTLE_ENDIAN);
+        frames.position(start + HEADER_BYTES + length);
+        return new Frame(type, payload);
+    }
+
+    // the answer to one problem
+    static long solve(int type, ByteBuffer payload) {
+        switch (type) {
+            case KNAPSACK:
+                return knapSack(payload);
+            case RAINWATER:
+                return rainWater(payload);
+            case PRIME_COUNT:
+                return primeCount(payload);
+            case FIB_MOD:
+                checkLength(payload, 16);
+                return FibonacciEngine.fibMod(payload.getLong(0), payload.getLong(8));
+            default:
+                throw new IllegalArgumentException("unknown problem type " + type);
+        }
+    }
+
+    // RollingKnapsack.knapSack(), on the items straight out of the frame
+    private static long knapSack(ByteBuffer payload) {
+        if (payload.remaining() < 8) {
+            throw new IllegalArgumentException("knapsack frame too short: " + payload.remaining() + " bytes");
+        }
+        int weightCap = payload.getInt(0);
+        int n = payload.getInt(4);
+        if (n < 0 || n > (Integer.MAX_VALUE - 8) / 8) {
+            throw new IllegalArgumentException("bad item count " + n);
+        }
+        checkLength(payload, 8 + 8 * n);
+        if (weightCap < 0 || weightCap > MAX_KNAPSACK_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "weightCap must be between 0 and " + MAX_KNAPSACK_CAPACITY + ": " + weightCap);
+        }
+        IntBuffer weights = payload.slice(8, 4 * n).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        IntBuffer values = payload.slice(8 + 4 * n, 4 * n).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long best = RollingKnapsack.bestValue(weightCap, weights, values);
+        instrumented.addCells(RollingKnapsack.cellsFilled(weightCap, weights));
+        instrumented.finish("pipeline", n, weightCap);
+        return best;
+    }
+
+    // SegmentedPrimeIterator.count(), for spans of at most MAX_PRIME_SPAN
+    private static long primeCount(ByteBuffer payload) {
+        checkLength(payload, 16);
+        long lo = payload.getLong(0);
+        long hi = payload.getLong(8);
+        if (lo >= 0 && hi >= lo && hi - lo > MAX_PRIME_SPAN) {
+            throw new IllegalArgumentException(
+                    "hi - lo must be at most " + MAX_PRIME_SPAN + ": [" + lo + ", " + hi + ")");
+        }
+        return SegmentedPrimeIterator.count(lo, hi);
+    }
+
+    // efficientSolution() (ParallelRainWater's block kernel with no walls), on the heights straight out of the frame
+    private static long rainWater(ByteBuffer payload) {
+        if (payload.remaining() < 4) {
+            throw new IllegalArgumentException("rainwater frame too short: " + payload.remaining() + " bytes");
+        }
+        int n = payload.getInt(0);
+        if (n < 0 || n > (Integer.MAX_VALUE - 4) / 4) {
+            throw new IllegalArgumentException("bad height count " + n);
+        }
+        checkLength(payload, 4 + 4 * n);
+        IntBuffer heights = payload.slice(4, 4 * n).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        return ParallelRainWater.blockWater(heights, 0, n - 1, Integer.MIN_VALUE, Integer.MIN_VALUE);
+    }
+
+    // how many of the UTF-8 bytes fit in maxBytes without cutting a character in half
+    static int utf8Prefix(byte utf8[], int maxBytes) {
+        if (utf8.length <= maxBytes) {
+            return utf8.length;
+        }
+        // continuation bytes look like 10xxxxxx; back up to the byte that starts the character that doesn't fit
+        int length = maxBytes;
+        while (length > 0 && (utf8[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+
+    private static void checkLength(ByteBuffer payload, int expected) {
+        if (payload.remaining() != expected) {
+            throw new IllegalArgumentException("expected a " + expected + " byte payload, got " + payload.remaining());
+        }
+    }
+
+    // writers for the problem frames, for building input
+
+    static void putKnapsack(ByteBuffer out, int weightCap, int weights[], int values[]) {
+        out.putInt(KNAPSACK).putInt(8 + 8 * weights.length).putInt(weightCap).putInt(weights.length);
+        for (int weight : weights) {
+            out.putInt(weight);
+        }
+        for (int value : values) {
+            out.putInt(value);
+        }
+    }
+
+    static void putRainWater(ByteBuffer out, int heights[]) {
+        out.putInt(RAINWATER).putInt(4 + 4 * heights.length).putInt(heights.length);
+        for (int height : heights) {
+            out.putInt(height);
+        }
+    }
+
+    static void putPrimeCount(ByteBuffer out, long lo, long hi) {
+        out.putInt(PRIME_COUNT).putInt(16).putLong(lo).putLong(hi);
+    }
+
+    static void putFibMod(ByteBuffer out, long n, long m) {
+        out.putInt(FIB_MOD).putInt(16).putLong(n).putLong(m);
+    }
+
+    private static final class Frame {
+        final int type;
+        final ByteBuffer payload;
+
+        Frame(int type, ByteBuffer payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+    private static final class Pending {
+        final int type;
+        final CompletableFuture<Long> answer;
+
+        Pending(int type, CompletableFuture<Long> answer) {
+            this.type = type;
+            this.answer = answer;
+        }
+    }
+
+    // the problems in flight, oldest first, and the buffered answers
+    private final class Window implements AutoCloseable {
+        private final ArrayDeque<Pending> inFlight = new ArrayDeque<>();
+        private final WritableByteChannel output;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long answered;
+
+        Window(WritableByteChannel output) {
+            this.output = output;
+        }
+
+        void submit(Frame frame) throws IOException {
+            if (inFlight.size() == maxInFlight) {
+                writeOldest();
+            }
+            inFlight.add(new Pending(frame.type,
+                    CompletableFuture.supplyAsync(() -> solve(frame.type, frame.payload), pool)));
+        }
+
+        long finish() throws IOException {
+            while (!inFlight.isEmpty()) {
+                writeOldest();
+            }
+            drain();
+            return answered;
+        }
+
+        private void writeOldest() throws IOException {
+            Pending oldest = inFlight.remove();
+            try {
+                long answer = oldest.answer.join();
+                ensureRoom(HEADER_BYTES + 8);
+                buffer.putInt(oldest.type).putInt(8).putLong(answer);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                byte message[] = String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8);
+                int length = 4 + utf8Prefix(message, buffer.capacity() - HEADER_BYTES - 4);
+                ensureRoom(HEADER_BYTES + length);
+                buffer.putInt(ERROR).putInt(length).putInt(oldest.type).put(message, 0, length - 4);
+            }
+            answered++;
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                output.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // nothing is left running if reading fails halfway
+        @Override
+        public void close() {
+            for (Pending pending : inFlight) {
+                pending.answer.cancel(false);
+            }
+            inFlight.clear();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(1 << 10).order(ByteOrder.LITTLE_ENDIAN);
+        putKnapsack(input, 50, new int[] { 31, 10, 20, 19, 4, 3, 6 }, new int[] { 70, 20, 39, 37, 7, 5, 10 });
+        putRainWater(input, new int[] { 4, 2, 1, 3, 0, 1, 2 });
+        putPrimeCount(input, 0, 1_000_000);
+        putPrimeCount(input, 0, Long.MAX_VALUE);
+        putFibMod(input, Long.MAX_VALUE, 1_000_000_007L);
+        putFibMod(input, 10, 0);
+        input.flip();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long answered = new BatchPipeline().run(input, Channels.newChannel(bytes));
+        ByteBuffer answers = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        System.out.println(answered + " answers:");
+        while (answers.hasRemaining()) {
+            int type = answers.getInt();
+            int length = answers.getInt();
+            if (type == ERROR) {
+                int problemType = answers.getInt();
+                byte message[] = new byte[length - 4];
+                answers.get(message);
+                System.out.println("  problem type " + problemType + " failed: "
+                        + new String(message, StandardCharsets.UTF_8));
+            } else {
+                System.out.println("  type " + type + ": " + answers.getLong());
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+Finding True Indices a Word at a Time:
+
+findTrueIndices() in the tutorial checks one boolean at a time, boxes every true index into an ArrayList, and then copies
+the list into an array just to print it.
+
+If the flags are packed 64 to a long instead, we can skip 64 false values with a single comparison (word == 0), and jump
+straight to each true one:
+
+for every word in the bitset:
+    while word != 0:
+        index = word number * 64 + Long.numberOfTrailingZeros(word)   (the position of the lowest set bit)
+        hand index to the sink
+        word = word & (word - 1)   (clears the lowest set bit)
+
+Long.numberOfTrailingZeros() compiles down to a single instruction on modern CPUs, so the cost is proportional to the
+number of true values, plus one step per 64 flags.
+
+The indices go to an IntConsumer (see PrimitiveSinks) instead of a list, so nothing is boxed. sieve() is the tutorial's
+final sieve rewritten to produce such a bitset, with its loops in integer arithmetic instead of Math.pow().
+*/
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class BitsetIndices {
+
+    // hands the index of every set bit below length to sink, in increasing order
+    static void findTrueIndices(long words[], int length, IntConsumer sink) {
+        int fullWords = length >>> 6;
+        for (int word = 0; word < fullWords; word++) {
+            forEachSetBit(words[word], word << 6, sink);
+        }
+        if ((length & 63) != 0) {
+            forEachSetBit(words[fullWords] & (-1L >>> (64 - (length & 63))), fullWords << 6, sink);
+        }
+    }
+
+    // packs a boolean[] into a bitset, so existing callers can switch over
+    static long[] toBitset(boolean flags[]) {
+        long words[] = new long[(flags.length + 63) >>> 6];
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return words;
+    }
+
+    // the tutorial's sieve, with one bit per number: bit n is set if n is prime
+    static long[] sieve(int limit) {
+        if (limit < 0 || limit == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("limit must be between 0 and " + (Integer.MAX_VALUE - 1) + ": " + limit);
+        }
+        long words[] = new long[(limit >>> 6) + 1];
+        Arrays.fill(words, -1L);
+        words[words.length - 1] = -1L >>> (63 - (limit & 63)); // nothing past limit
+        words[0] &= ~3L; // 0 and 1 aren't prime
+        for (int i = 2; (long) i * i <= limit; i++) {
+            if ((words[i >>> 6] & (1L << i)) != 0) {
+                for (int j = i * i; j <= limit && j > 0; j += i) {
+                    words[j >>> 6] &= ~(1L << j);
+                }
+            }
+        }
+        return words;
+    }
+
+    private static void forEachSetBit(long word, int base, IntConsumer sink) {
+        while (word != 0) {
+            sink.accept(base + Long.numberOfTrailingZeros(word));
+            word &= word - 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean testValues[] = { false, false, true, true, false, true, false, true };
+        PrimitiveSinks.IntList result = new PrimitiveSinks.IntList();
+        findTrueIndices(toBitset(testValues), testValues.length, result);
+        System.out.println(result);
+
+        int limit = 100;
+        PrimitiveSinks.IntList primes = new PrimitiveSinks.IntList();
+        findTrueIndices(sieve(limit), limit + 1, primes);
+        System.out.println(primes);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+Branch and Bound Knapsack:
+
+The recursive knapSack() looks at every subset of the items, so it makes O(2^n) calls even when most of those subsets are
+obviously hopeless. Branch and bound walks the same tree of "take it or leave it" decisions, but before going down a
+branch it asks: what is the MOST this branch could possibly be worth? If that isn't better than the best knapsack we've
+already found, the whole branch is skipped.
+
+A cheap and surprisingly tight answer to that question comes from the fractional knapsack, where we're allowed to take
+part of an item. Sort the items by value per unit of weight (density), take whole items while they fit, and then take
+the fraction of the next item that fills the rest of the knapsack. Nothing we can do with whole items beats that.
+
+sort items by density, highest first
+best = greedily take every item that fits
+search(k, remaining capacity, value so far):
+    if value so far > best: remember it
+    if value so far + fractional bound of items k... <= best: give up on this branch
+    if item k fits: search(k + 1, remaining - weight of k, value so far + value of k)
+    search(k + 1, remaining, value so far)
+
+With prefix sums over the sorted items, the bound only needs a binary search, and since nothing here depends on the size
+of weightCap, astronomically large capacities cost nothing extra.
+
+The search can be given a time budget. If it runs out, we return the best knapsack found so far, which is never worse than
+the greedy one we started with.
+*/
+
+import java.util.Arrays;
+
+public class BranchAndBoundKnapsack {
+
+    static KnapsackSolution solve(long weightCap, int weights[], int values[]) {
+        return solve(weightCap, weights, values, Long.MAX_VALUE);
+    }
+
+    static KnapsackSolution solve(long weightCap, int weights[], int values[], long budgetNanos) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        Search search = new Search(weightCap, weights, values, deadline(budgetNanos));
+        search.run();
+        KnapsackSolution solution = search.toSolution();
+        instrumented.addCells(search.nodes);
+        instrumented.finish("branch-and-bound", weights.length, weightCap);
+        return solution;
+    }
+
+    static long deadline(long budgetNanos) {
+        long now = System.nanoTime();
+        return budgetNanos >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + budgetNanos;
+    }
+
+    // item indices that are worth considering, sorted by value per unit of weight, highest first
+    static int[] byDensity(long weightCap, int weights[], int values[]) {
+        int order[] = new int[weights.length];
+        int count = 0;
+        for (int item = 0; item < weights.length; item++) {
+            if (values[item] > 0 && weights[item] <= weightCap) {
+                order[count++] = item;
+            }
+        }
+        order = Arrays.copyOf(order, count);
+        mergeSort(order, new int[count], 0, count, weights, values);
+        return order;
+    }
+
+    // a top-down merge sort on the item indices: stable, so equal densities keep their input order, and
+    // O(n log n) however many densities tie
+    private static void mergeSort(int order[], int scratch[], int from, int to, int weights[], int values[]) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(order, scratch, from, mid, weights, values);
+        mergeSort(order, scratch, mid, to, weights, values);
+        if (!denser(order[mid], order[mid - 1], weights, values)) {
+            return;     // already in order
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int k = from; k < to; k++) {
+            // take from the right half only when it's strictly denser, which keeps ties in index order
+            if (left < mid && (right == to || !denser(scratch[right], scratch[left], weights, values))) {
+                order[k] = scratch[left++];
+            } else {
+                order[k] = scratch[right++];
+            }
+        }
+    }
+
+    // a / b > c / d is the same as a * d > c * b, exactly, and the products fit in a long. A zero weight comes out
+    // denser than any positive one, and values are positive by the time they get here.
+    private static boolean denser(int a, int b, int weights[], int values[]) {
+        return (long) values[a] * weights[b] > (long) values[b] * weights[a];
+    }
+
+    // takes every item that still fits, in density order
+    static boolean[] greedy(long weightCap, int weights[], int order[]) {
+        boolean taken[] = new boolean[order.length];
+        long remaining = weightCap;
+        for (int k = 0; k < order.length; k++) {
+            if (weights[order[k]] <= remaining) {
+                taken[k] = true;
+                remaining -= weights[order[k]];
+            }
+        }
+        return taken;
+    }
+
+    private static final class Search {
+        private final int weights[];
+        private final int values[];
+        private final int order[];
+        private final long weightCap;
+        private final long deadline;
+
+        // prefixWeight[k] and prefixValue[k] are the totals of the first k items in density order
+        private final long prefixWeight[];
+        private final long prefixValue[];
+
+        private final boolean taken[];
+        private boolean bestTaken[];
+        private long best;
+        private long nodes;
+        private boolean timedOut;
+
+        Search(long weightCap, int weights[], int values[], long deadline) {
+            this.weights = weights;
+            this.values = values;
+            this.weightCap = weightCap;
+            this.deadline = deadline;
+            this.order = byDensity(weightCap, weights, values);
+            this.prefixWeight = new long[order.length + 1];
+            this.prefixValue = new long[order.length + 1];
+            for (int k = 0; k < order.length; k++) {
+                prefixWeight[k + 1] = prefixWeight[k] + weights[order[k]];
+                prefixValue[k + 1] = prefixValue[k] + values[order[k]];
+            }
+            this.taken = new boolean[order.length];
+            this.bestTaken = greedy(weightCap, weights, order);
+            for (int k = 0; k < order.length; k++) {
+                if (bestTaken[k]) {
+                    best += values[order[k]];
+                }
+            }
+        }
+
+        void run() {
+            search(0, weightCap, 0);
+        }
+
+        private void search(int k, long remaining, long value) {
+            if (value > best) {
+                best = value;
+                bestTaken = taken.clone();
+            }
+            if (k == order.length || value + bound(k, remaining) <= best) {
+                return;
+            }
+            if ((++nodes & 1023) == 0 && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+            }
+            if (timedOut) {
+                return;
+            }
+            int itemWeight = weights[order[k]];
+            if (itemWeight <= remaining) {
+                taken[k] = true;
+                search(k + 1, remaining - itemWeight, value + values[order[k]]);
+                taken[k] = false;
+            }
+            search(k + 1, remaining, value);
+        }
+
+        // the fractional knapsack value of items k... in a knapsack that holds remaining
+        private long bound(int k, long remaining) {
+            // the last j such that items k...j - 1 all fit
+            int lo = k;
+            int hi = order.length;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (prefixWeight[mid] - prefixWeight[k] <= remaining) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            int j = lo;
+            long bound = prefixValue[j] - prefixValue[k];
+            if (j < order.length) {
+                // what's left is smaller than item j's weight, so this product fits in a long
+                long left = remaining - (prefixWeight[j] - prefixWeight[k]);
+                bound += left * values[order[j]] / weights[order[j]];
+            }
+            return bound;
+        }
+
+        KnapsackSolution toSolution() {
+            boolean chosen[] = new boolean[weights.length];
+            for (int k = 0; k < order.length; k++) {
+                chosen[order[k]] = bestTaken[k];
+            }
+            KnapsackSolution solution = RollingKnapsack.toSolution(chosen, values);
+            return new KnapsackSolution(solution.value(), solution.items(), !timedOut);
+        }
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        System.out.println(solve(50, weights, values));
+
+        int heavyWeights[] = new int[weights.length];
+        for (int item = 0; item < weights.length; item++) {
+            heavyWeights[item] = weights[item] * 40_000_000;
+        }
+        System.out.println(solve(50L * 40_000_000, heavyWeights, values, 1_000_000_000L));
+    }
+}
@@ -0,0 +1,341 @@
+/*
+Fast Doubling Fibonacci:
+
+fibMemo() works its way down from n to 0 one call at a time, so it needs n stack frames (and overflows the stack around
+n = 10,000), boxes every number into a HashMap, and silently overflows an int after fib(46).
+
+There's a much faster way that doesn't need a memo at all. With a = fib(k) and b = fib(k + 1), two identities take us
+straight from k to 2k:
+
+fib(2k)     = b^2 - (b - a)^2
+fib(2k + 1) = a^2 + b^2
+
+So, just like computing a power by repeated squaring, we can read n's bits from the most significant one down, doubling
+k at every bit (and stepping to 2k + 1 when the bit is set). That's O(log n) steps instead of O(n).
+
+Written that way, every multiplication is a square. Java's BigInteger squares a number faster than it multiplies two
+different ones (it switches to Karatsuba and Toom-Cook squaring for big numbers), so the exact fib(n) gets the cheapest
+multiplications available.
+*/
+
+/*
+Fibonacci Modulo m:
+
+Often we don't need the whole (enormous) number, just fib(n) mod m. The same doubling works with every operation done
+mod m, for any n up to 2^63. When m is bigger than about 3 billion, a * b can overflow a long, so the full 128-bit
+product is taken in two halves (Math.multiplyHigh() gives the top 64 bits) and divided by m the way long division is
+done on paper, with 32-bit digits instead of decimal ones (Knuth's algorithm D, as written out in Hacker's Delight).
+
+The Fibonacci numbers mod m also repeat, with a period called the Pisano period pi(m). For a prime p it divides p - 1 or
+2(p + 1) (depending on p mod 5), for a prime power it's p^(e - 1) * pi(p), and for anything else it's the least common
+multiple of its prime powers' periods. Once we know pi(m), fib(n) mod m = fib(n mod pi(m)) mod m, which turns a 63-bit
+n into a much smaller one.
+
+fibMod(ns, ms) answers a whole batch of (n, m) queries. It groups them by modulus so each modulus only has its Pisano
+period found once, and it builds a ladder of fib(2^k) and fib(2^k + 1) mod m that every query with that modulus shares:
+fib(n) is then put together from the ladder rungs for the set bits of n, with no squaring left to do.
+*/
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+public class FibonacciEngine {
+
+    // moduli up to here get their Pisano period found by trial division, which takes about sqrt(m) steps
+    static final long PISANO_LIMIT = 1L << 32;
+
+    // the exact fib(n)
+    static BigInteger fib(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative: " + n);
+        }
+        BigInteger a = BigInteger.ZERO; // fib(k)
+        BigInteger b = BigInteger.ONE;  // fib(k + 1)
+        for (int bit = 31 - Integer.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            BigInteger aSquared = a.multiply(a);
+            BigInteger bSquared = b.multiply(b);
+            BigInteger difference = b.subtract(a);
+            BigInteger even = bSquared.subtract(difference.multiply(difference)); // fib(2k)
+            BigInteger odd = aSquared.add(bSquared);                             // fib(2k + 1)
+            if ((n >>> bit & 1) == 0) {
+                a = even;
+                b = odd;
+            } else {
+                a = odd;
+                b = even.add(odd);
+            }
+        }
+        return a;
+    }
+
+    // fib(n) mod m, for any n >= 0 and m >= 1
+    static long fibMod(long n, long m) {
+        checkQuery(n, m);
+        long pair[] = new long[2];
+        fibPairMod(n, m, pair);
+        return pair[0];
+    }
+
+    // fib(ns[k]) mod ms[k] for every k, sharing the work between queries with the same modulus
+    static long[] fibMod(long ns[], long ms[]) {
+        if (ns.length != ms.length) {
+            throw new IllegalArgumentException("ns and ms must have the same length: " + ns.length + " != " + ms.length);
+        }
+        for (int k = 0; k < ns.length; k++) {
+            checkQuery(ns[k], ms[k]);
+        }
+        int order[] = groupedByModulus(ms);
+
+        long answers[] = new long[ns.length];
+        int start = 0;
+        while (start < order.length) {
+            long m = ms[order[start]];
+            int end = start;
+            while (end < order.length && ms[order[end]] == m) {
+                end++;
+            }
+            // one Pisano period and one ladder for every query with this modulus
+            long period = m <= PISANO_LIMIT ? pisano(m) : 0;
+            long largest = 0;
+            for (int k = start; k < end; k++) {
+                largest = Math.max(largest, reduce(ns[order[k]], period));
+            }
+            long ladder[] = ladder(largest, m);
+            for (int k = start; k < end; k++) {
+                answers[order[k]] = fromLadder(reduce(ns[order[k]], period), ladder, m);
+            }
+            start = end;
+        }
+        return answers;
+    }
+
+    /*
+    Query indices sorted by modulus, without boxing. A modulus is a whole long, so it can't be packed into one long with
+    its index the way KnapsackBatch.sortedOrder() packs a capacity. Instead the distinct moduli are sorted on their own,
+    and each query is packed as (rank of its modulus, index).
+    */
+    private static int[] groupedByModulus(long ms[]) {
+        long moduli[] = ms.clone();
+        Arrays.sort(moduli);
+        int distinct = 0;
+        for (int k = 0; k < moduli.length; k++) {
+            if (k == 0 || moduli[k] != moduli[distinct - 1]) {
+                moduli[distinct++] = moduli[k];
+            }
+        }
+        long packed[] = new long[ms.length];
+        for (int query = 0; query < ms.length; query++) {
+            packed[query] = (long) Arrays.binarySearch(moduli, 0, distinct, ms[query]) << 32 | query;
+        }
+        Arrays.sort(packed);
+        int order[] = new int[ms.length];
+        for (int k = 0; k < packed.length; k++) {
+            order[k] = (int) packed[k];
+        }
+        return order;
+    }
+
+    // the Pisano period of m (the period of fib(n) mod m)
+    static long pisano(long m) {
+        if (m < 1 || m > PISANO_LIMIT) {
+            throw new IllegalArgumentException("m must be between 1 and " + PISANO_LIMIT + ": " + m);
+        }
+        if (m == 1) {
+            return 1;
+        }
+        long period = 1;
+        long rest = m;
+        for (long p = 2; p * p <= rest; p++) {
+            if (rest % p == 0) {
+                long power = 1;
+                while (rest % p == 0) {
+                    rest /= p;
+                    power *= p;
+                }
+                period = lcm(period, power / p * pisanoOfPrime(p));
+            }
+        }
+        if (rest > 1) {
+            period = lcm(period, pisanoOfPrime(rest));
+        }
+        return period;
+    }
+
+    private static long pisanoOfPrime(long p) {
+        if (p == 2) {
+            return 3;
+        }
+        if (p == 5) {
+            return 20;
+        }
+        long period = p % 5 == 1 || p % 5 == 4 ? p - 1 : 2 * (p + 1);
+        // the period divides that candidate; take out every prime factor that still leaves a period
+        long pair[] = new long[2];
+        long candidate = period;
+        for (long q = 2; q * q <= candidate; q++) {
+            if (candidate % q == 0) {
+                while (candidate % q == 0) {
+                    candidate /= q;
+                }
+                period = shrinkPeriod(period, q, p, pair);
+            }
+        }
+        if (candidate > 1) {
+            period = shrinkPeriod(period, candidate, p, pair);
+        }
+        return period;
+    }
+
+    private static long shrinkPeriod(long period, long q, long p, long pair[]) {
+        while (period % q == 0) {
+            fibPairMod(period / q, p, pair);
+            if (pair[0] != 0 || pair[1] != 1 % p) {
+                break;
+            }
+            period /= q;
+        }
+        return period;
+    }
+
+    // pair = { fib(n) mod m, fib(n + 1) mod m }, by fast doubling
+    private static void fibPairMod(long n, long m, long pair[]) {
+        long a = 0;
+        long b = 1 % m;
+        for (int bit = 63 - Long.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            long difference = subMod(b, a, m);
+            long bSquared = mulMod(b, b, m);
+            long even = subMod(bSquared, mulMod(difference, difference, m), m);
+            long odd = addMod(mulMod(a, a, m), bSquared, m);
+            if ((n >>> bit & 1) == 0) {
+                a = even;
+                b = odd;
+            } else {
+                a = odd;
+                b = addMod(even, odd, m);
+            }
+        }
+        pair[0] = a;
+        pair[1] = b;
+    }
+
+    // ladder[2k] = fib(2^k) mod m and ladder[2k + 1] = fib(2^k + 1) mod m, for every bit of largest
+    private static long[] ladder(long largest, long m) {
+        int rungs = Math.max(1, 64 - Long.numberOfLeadingZeros(largest));
+        long ladder[] = new long[2 * rungs];
+        long a = 1 % m; // fib(1)
+        long b = 1 % m; // fib(2)
+        for (int k = 0; k < rungs; k++) {
+            ladder[2 * k] = a;
+            ladder[2 * k + 1] = b;
+            // fib(2j) = fib(j) * (2 fib(j + 1) - fib(j)), fib(2j + 1) = fib(j)^2 + fib(j + 1)^2
+            long even = mulMod(a, subMod(addMod(b, b, m), a, m), m);
+            long odd = addMod(mulMod(a, a, m), mulMod(b, b, m), m);
+            a = even;
+            b = odd;
+        }
+        return ladder;
+    }
+
+    // fib(n) mod m, adding up ladder rungs with fib(x + y) = fib(x) fib(y + 1) + fib(x + 1) fib(y) - fib(x) fib(y)
+    private static long fromLadder(long n, long ladder[], long m) {
+        long a = 0;     // fib(x)
+        long b = 1 % m; // fib(x + 1)
+        for (int k = 0; n >>> k != 0; k++) {
+            if ((n >>> k & 1) == 0) {
+                continue;
+            }
+            long c = ladder[2 * k];
+            long d = ladder[2 * k + 1];
+            long ac = mulMod(a, c, m);
+            long sum = subMod(addMod(mulMod(a, d, m), mulMod(b, c, m), m), ac, m);
+            b = addMod(mulMod(b, d, m), ac, m);
+            a = sum;
+        }
+        return a;
+    }
+
+    private static long reduce(long n, long period) {
+        return period == 0 ? n : n % period;
+    }
+
+    private static void checkQuery(long n, long m) {
+        if (n < 0 || m < 1) {
+            throw new IllegalArgumentException("need n >= 0 and m >= 1: " + n + ", " + m);
+        }
+    }
+
+    // a * b mod m without overflowing, for 0 <= a, b < m
+    static long mulMod(long a, long b, long m) {
+        if (m <= 3_037_000_499L) {
+            return a * b % m;
+        }
+        // a and b aren't negative, so the signed high half is the unsigned one
+        return remainder(Math.multiplyHigh(a, b), a * b, m);
+    }
+
+    private static final long DIGIT = 1L << 32;
+    private static final long DIGIT_MASK = DIGIT - 1;
+
+    // (high * 2^64 + low) mod m, for high < m, where low is unsigned
+    private static long remainder(long high, long low, long m) {
+        // shift m up until its top bit is set, so each quotient digit guessed from m's top digit is at most 2 too big
+        int shift = Long.numberOfLeadingZeros(m);
+        long divisor = m << shift;
+        long divisorHigh = divisor >>> 32;
+        long divisorLow = divisor & DIGIT_MASK;
+        long top = shift == 0 ? high : high << shift | low >>> (64 - shift);
+        long rest = low << shift;
+
+        // the dividend is now top (two digits), then two more digits in rest; bring them down one at a time
+        top = divideStep(top, rest >>> 32, divisor, divisorHigh, divisorLow);
+        top = divideStep(top, rest & DIGIT_MASK, divisor, divisorHigh, divisorLow);
+        return top >>> shift;
+    }
+
+    // (top * 2^32 + digit) mod divisor, for top < divisor: guess the quotient digit from the top digits and correct it
+    private static long divideStep(long top, long digit, long divisor, long divisorHigh, long divisorLow) {
+        long quotient = Long.divideUnsigned(top, divisorHigh);
+        long guessRemainder = top - quotient * divisorHigh;
+        while (quotient >= DIGIT
+                || Long.compareUnsigned(quotient * divisorLow, guessRemainder << 32 | digit) > 0) {
+            quotient--;
+            guessRemainder += divisorHigh;
+            if (guessRemainder >= DIGIT) {
+                break;
+            }
+        }
+        // everything past the lowest 64 bits cancels out
+        return (top << 32 | digit) - quotient * divisor;
+    }
+
+    // a + b mod m without overflowing, for 0 <= a, b < m
+    private static long addMod(long a, long b, long m) {
+        long sum = a - (m - b);
+        return sum < 0 ? sum + m : sum;
+    }
+
+    private static long subMod(long a, long b, long m) {
+        long difference = a - b;
+        return difference < 0 ? difference + m : difference;
+    }
+
+    private static long lcm(long a, long b) {
+        long x = a;
+        long y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    public static void main(String[] args) {
+        System.out.println(fib(10) + " " + fib(20) + " " + fib(100));
+        System.out.println("fib(1,000,000) has " + fib(1_000_000).bitLength() + " bits");
+        System.out.println(fibMod(Long.MAX_VALUE, 1_000_000_007L));
+        System.out.println(Arrays.toString(fibMod(
+                new long[] { 10, 20, Long.MAX_VALUE, 1L << 62 },
+                new long[] { 1_000_000_007L, 1_000_000_007L, 1_000_000_007L, Long.MAX_VALUE })));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+Many Capacities, One Table:
+
+Say we want the best knapsack for the same items in a hundred different trucks. Calling knapSack() once per truck fills
+the whole table a hundred times, but look at what the last row of the table already holds: the best value for EVERY
+capacity from 0 up to weightCap. So we only need to fill the table once, up to the biggest truck, and then read off all of
+the answers:
+
+maxCap = the largest capacity asked for
+row = the last row of the table for maxCap (one rolling row is enough)
+for every capacity asked for:
+    answer = row[capacity]
+
+The best values are almost free this way. Getting the actual items for a capacity still needs its own reconstruction
+(see RollingKnapsack.solve()), so solve() only does that for the capacities it's asked about, once per distinct
+capacity, and keeps the results in a KnapsackCache so that the next batch with the same items can skip it entirely.
+*/
+
+import java.util.Arrays;
+
+public class KnapsackBatch {
+
+    // best value for every capacity in capacities, from a single pass over the items
+    static long[] knapSack(int capacities[], int weights[], int values[]) {
+        int maxCap = max(capacities);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long row[] = bestByCapacity(maxCap, weights, values);
+        long answers[] = new long[capacities.length];
+        for (int query = 0; query < capacities.length; query++) {
+            answers[query] = row[capacities[query]];
+        }
+        instrumented.addCells(RollingKnapsack.cellsFilled(maxCap, weights));
+        instrumented.finish("batch", weights.length, maxCap);
+        return answers;
+    }
+
+    // row[c] is the best value for a knapsack that holds c, for every c from 0 to weightCap
+    static long[] bestByCapacity(int weightCap, int weights[], int values[]) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        long row[] = new long[weightCap + 1];
+        for (int item = 0; item < weights.length; item++) {
+            RollingKnapsack.applyItem(row, weightCap, weights[item], values[item]);
+        }
+        return row;
+    }
+
+    static KnapsackSolution[] solve(int capacities[], int weights[], int values[]) {
+        return solve(capacities, weights, values, null);
+    }
+
+    // the best knapsack (with its items) for every capacity in capacities; cache may be null
+    static KnapsackSolution[] solve(int capacities[], int weights[], int values[], KnapsackCache cache) {
+        int maxCap = max(capacities);
+        RollingKnapsack.checkInputs(maxCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long contentHash = cache == null ? 0 : KnapsackCache.contentHash(weights, values);
+        int cachedWeights[] = null;
+        int cachedValues[] = null;
+
+        // solve each distinct capacity once, in sorted order
+        int order[] = sortedOrder(capacities);
+        KnapsackSolution solutions[] = new KnapsackSolution[capacities.length];
+        KnapsackSolution previous = null;
+        for (int k = 0; k < order.length; k++) {
+            int query = order[k];
+            int capacity = capacities[query];
+            if (k > 0 && capacities[order[k - 1]] == capacity) {
+                solutions[query] = previous;
+                continue;
+            }
+            KnapsackSolution solution = cache == null ? null : cache.get(contentHash, weights, values, capacity);
+            if (solution == null) {
+                boolean chosen[] = new boolean[weights.length];
+                instrumented.addCells(RollingKnapsack.chooseItems(capacity, weights, values, chosen));
+                solution = RollingKnapsack.toSolution(chosen, values);
+                if (cache != null) {
+                    // the cache keeps its own copy of the items, shared by every capacity in this batch
+                    if (cachedWeights == null) {
+                        cachedWeights = weights.clone();
+                        cachedValues = values.clone();
+                    }
+                    cache.put(contentHash, cachedWeights, cachedValues, capacity, solution);
+                }
+            }
+            solutions[query] = solution;
+            previous = solution;
+        }
+        instrumented.finish("batch-items", weights.length, maxCap);
+        return solutions;
+    }
+
+    private static int max(int capacities[]) {
+        int max = 0;
+        for (int capacity : capacities) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("capacities must not be negative: " + capacity);
+            }
+            max = Math.max(max, capacity);
+        }
+        return max;
+    }
+
+    // query indices sorted by capacity, packed as (capacity, index) longs so nothing gets boxed
+    private static int[] sortedOrder(int capacities[]) {
+        long packed[] = new long[capacities.length];
+        for (int query = 0; query < capacities.length; query++) {
+            packed[query] = (long) capacities[query] << 32 | query;
+        }
+        Arrays.sort(packed);
+        int order[] = new int[capacities.length];
+        for (int k = 0; k < packed.length; k++) {
+            order[k] = (int) packed[k];
+        }
+        return order;
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        int trucks[] = new int[] { 10, 25, 50, 25, 100 };
+        System.out.println(Arrays.toString(knapSack(trucks, weights, values)));
+
+        KnapsackCache cache = new KnapsackCache(1_000);
+        for (KnapsackSolution solution : solve(trucks, weights, values, cache)) {
+            System.out.println(solution);
+        }
+        solve(trucks, weights, values, cache);
+        System.out.println("cache hits: " + cache.hits() + ", misses: " + cache.misses());
+    }
+}
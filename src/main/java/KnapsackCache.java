@@ -0,0 +1,121 @@
+/*
+Caching Knapsack Solutions:
+
+Reconstructing the items of a knapsack is much more expensive than finding its best value, and the same item sets get
+asked about over and over again. KnapsackCache remembers solved knapsacks, keyed by the contents of the weights and values
+arrays together with the capacity.
+
+Hashing the contents means two different arrays holding the same items share their cached answers. The hash only picks
+the bucket, though: before a cached answer is returned, the arrays are compared element by element, so a hash collision
+can never hand back someone else's knapsack.
+
+The cache holds at most maxEntries solutions. When it's full, the least recently used solution is evicted (a
+LinkedHashMap in access order does the bookkeeping for us).
+*/
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class KnapsackCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, KnapsackSolution> entries;
+    private long hits;
+    private long misses;
+
+    public KnapsackCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, KnapsackSolution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, KnapsackSolution> eldest) {
+                return size() > KnapsackCache.this.maxEntries;
+            }
+        };
+    }
+
+    // a 64-bit hash of the item set, to be computed once and passed to get() and put()
+    static long contentHash(int weights[], int values[]) {
+        long hash = 0x9E3779B97F4A7C15L ^ weights.length;
+        for (int item = 0; item < weights.length; item++) {
+            hash = mix(hash + ((long) weights[item] << 32 | (values[item] & 0xFFFFFFFFL)));
+        }
+        return hash;
+    }
+
+    // the cached solution, or null if this item set and capacity haven't been solved yet
+    public synchronized KnapsackSolution get(long contentHash, int weights[], int values[], int capacity) {
+        KnapsackSolution solution = entries.get(new Key(contentHash, weights, values, capacity));
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return solution;
+    }
+
+    // the arrays are kept as keys, so callers must not change them afterwards (pass a copy if they might)
+    public synchronized void put(long contentHash, int weights[], int values[], int capacity, KnapsackSolution solution) {
+        entries.put(new Key(contentHash, weights, values, capacity), solution);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // the finalizer from MurmurHash3, which spreads every input bit over the whole word
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Key {
+        private final long contentHash;
+        private final int weights[];
+        private final int values[];
+        private final int capacity;
+
+        Key(long contentHash, int weights[], int values[], int capacity) {
+            this.contentHash = contentHash;
+            this.weights = weights;
+            this.values = values;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) mix(contentHash + capacity);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return contentHash == key.contentHash
+                    && capacity == key.capacity
+                    && Arrays.equals(weights, key.weights)
+                    && Arrays.equals(values, key.values);
+        }
+    }
+}
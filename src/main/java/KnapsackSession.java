@@ -0,0 +1,265 @@
+/*
+Incremental Knapsack Sessions:
+
+Every call to knapSack() builds the whole table from scratch, even if the only thing that changed since the last call is
+one new item. But remember what a row of the table means: the best value for every capacity using the items seen so far.
+If we keep the last row around, adding an item is just one more row, which costs O(maxCapacity).
+
+Removing an item is harder. The row mixes every item together, and there's no way to "subtract" an item back out of a
+max. A row only ever grows from the items under it, though, so if the items sit on a stack, each with the row of
+everything below it, popping the top item is free: the row below is still there.
+
+One stack only makes the newest item cheap to remove, so the session keeps two, back to back, like a queue built from two
+stacks:
+
+oldest ... [front stack, top = oldest] | [back stack, top = newest] ... newest
+
+add() pushes onto the back stack. Removing the oldest or the newest item is a pop. Removing an item from the middle of a
+stack pops everything above it and pushes it back again. When an item is deep down in its stack (say the oldest item,
+while the front stack is empty), the session rebuilds both stacks instead, split at the middle, so the next half of the
+items can come off either end cheaply. Taking items off in the order they were added (a sliding window) or the reverse
+costs O(checkpointInterval) rows each on average (see below) instead of O(size), and no removal ever replays more than the
+items left in the session.
+
+Neither stack top is the answer on its own: the best knapsack can take some capacity j from the front items and the rest
+from the back items, so
+
+best(capacity) = max over j of front[j] + back[capacity - j]
+
+which is O(capacity) per query instead of O(1).
+
+Memory: keeping a row for every item would cost size * (maxCapacity + 1) longs, so each stack only keeps a checkpoint row
+every checkpointInterval items and replays at most checkpointInterval - 1 items from it. That's still
+(size / checkpointInterval + 4) * (maxCapacity + 1) longs, which grows with the session: 10,000 items at a maxCapacity of
+1,000,000 and the default interval is about 160 rows, 1.3 GB. Raise the interval for sessions that big; it trades memory
+for the cost of each pop.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class KnapsackSession {
+
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 64;
+
+    private final int maxCapacity;
+    private final int checkpointInterval;
+
+    private RowStack front;
+    private RowStack back;
+
+    // where each handle's item is: the stack it's on and how far up it sits, or a null stack once it has been removed
+    private RowStack stacks[] = new RowStack[16];
+    private int heights[] = new int[16];
+    private int nextHandle;
+
+    public KnapsackSession(int maxCapacity) {
+        this(maxCapacity, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public KnapsackSession(int maxCapacity, int checkpointInterval) {
+        if (maxCapacity < 0) {
+            throw new IllegalArgumentException("maxCapacity must not be negative: " + maxCapacity);
+        }
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be positive: " + checkpointInterval);
+        }
+        this.maxCapacity = maxCapacity;
+        this.checkpointInterval = checkpointInterval;
+        this.front = new RowStack();
+        this.back = new RowStack();
+    }
+
+    // adds an item in O(maxCapacity) and returns a handle that can be used to remove it again
+    public int add(int weight, int value) {
+        if (weight < 0 || value < 0) {
+            throw new IllegalArgumentException("weight and value must not be negative: " + weight + ", " + value);
+        }
+        if (nextHandle == stacks.length) {
+            stacks = Arrays.copyOf(stacks, nextHandle * 2);
+            heights = Arrays.copyOf(heights, nextHandle * 2);
+        }
+        int handle = nextHandle++;
+
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        instrumented.addCells(back.push(weight, value, handle));
+        instrumented.finish("session-add", size(), maxCapacity);
+        return handle;
+    }
+
+    // removes an item: a pop if it's the oldest or newest, otherwise a replay of the items above it or a rebuild
+    public void remove(int handle) {
+        if (handle < 0 || handle >= nextHandle || stacks[handle] == null) {
+            throw new IllegalArgumentException("no item with handle " + handle);
+        }
+        RowStack stack = stacks[handle];
+        int height = heights[handle];
+        stacks[handle] = null;
+
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        int remaining = size() - 1;
+        if (stack.replayCost(height) <= remaining / 2) {
+            instrumented.addCells(stack.removeAt(height));
+        } else {
+            instrumented.addCells(rebuildWithout(stack, height));
+        }
+        instrumented.finish("session-remove", size(), maxCapacity);
+    }
+
+    // best value of the current items in a knapsack that holds capacity
+    public long best(int capacity) {
+        if (capacity < 0 || capacity > maxCapacity) {
+            throw new IllegalArgumentException("capacity must be between 0 and " + maxCapacity + ": " + capacity);
+        }
+        if (front.size == 0) {
+            return back.top[capacity];
+        }
+        if (back.size == 0) {
+            return front.top[capacity];
+        }
+        long best = 0;
+        for (int frontCapacity = 0; frontCapacity <= capacity; frontCapacity++) {
+            best = Math.max(best, front.top[frontCapacity] + back.top[capacity - frontCapacity]);
+        }
+        return best;
+    }
+
+    // best value of the current items for every capacity from 0 to maxCapacity
+    public long[] bestByCapacity() {
+        // merging the two tops for every capacity would be O(maxCapacity^2); pushing the smaller stack's items onto the
+        // larger stack's top is O(maxCapacity) per item instead
+        RowStack larger = front.size >= back.size ? front : back;
+        RowStack smaller = larger == front ? back : front;
+        long row[] = larger.top.clone();
+        for (int item = 0; item < smaller.size; item++) {
+            RollingKnapsack.applyItem(row, maxCapacity, smaller.weights[item], smaller.values[item]);
+        }
+        return row;
+    }
+
+    public int size() {
+        return front.size + back.size;
+    }
+
+    public int maxCapacity() {
+        return maxCapacity;
+    }
+
+    // moves every item but one back onto the two stacks, split at the middle; returns the cells filled in
+    private long rebuildWithout(RowStack stack, int height) {
+        int count = size() - 1;
+        int weights[] = new int[count];
+        int values[] = new int[count];
+        int handles[] = new int[count];
+        int item = 0;
+        // oldest first: the front stack from the top down, then the back stack from the bottom up
+        for (int k = front.size - 1; k >= 0; k--) {
+            if (stack != front || k != height) {
+                weights[item] = front.weights[k];
+                values[item] = front.values[k];
+                handles[item++] = front.handles[k];
+            }
+        }
+        for (int k = 0; k < back.size; k++) {
+            if (stack != back || k != height) {
+                weights[item] = back.weights[k];
+                values[item] = back.values[k];
+                handles[item++] = back.handles[k];
+            }
+        }
+
+        front = new RowStack();
+        back = new RowStack();
+        int split = count / 2;
+        long cells = 0;
+        for (int k = split - 1; k >= 0; k--) {
+            cells += front.push(weights[k], values[k], handles[k]);
+        }
+        for (int k = split; k < count; k++) {
+            cells += back.push(weights[k], values[k], handles[k]);
+        }
+        return cells;
+    }
+
+    // items pushed bottom to top, with a checkpoint of the row every checkpointInterval items and the row of all of them
+    private final class RowStack {
+        private int weights[] = new int[16];
+        private int values[] = new int[16];
+        private int handles[] = new int[16];
+        private int size;
+
+        // checkpoint k = the row after the bottom k * checkpointInterval items
+        private final List<long[]> checkpoints = new ArrayList<long[]>();
+        private long top[];
+
+        RowStack() {
+            top = new long[maxCapacity + 1];
+            checkpoints.add(top.clone());
+        }
+
+        long push(int weight, int value, int handle) {
+            if (size == weights.length) {
+                weights = Arrays.copyOf(weights, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                handles = Arrays.copyOf(handles, size * 2);
+            }
+            weights[size] = weight;
+            values[size] = value;
+            handles[size] = handle;
+            stacks[handle] = this;
+            heights[handle] = size;
+            size++;
+            RollingKnapsack.applyItem(top, maxCapacity, weight, value);
+            if (size % checkpointInterval == 0) {
+                checkpoints.add(top.clone());
+            }
+            return RollingKnapsack.cellsFilled(maxCapacity, weight);
+        }
+
+        // how many items removeAt(height) replays
+        int replayCost(int height) {
+            return size - 1 - height / checkpointInterval * checkpointInterval;
+        }
+
+        // takes out the item at height and replays the ones above it from the last checkpoint below it
+        long removeAt(int height) {
+            System.arraycopy(weights, height + 1, weights, height, size - height - 1);
+            System.arraycopy(values, height + 1, values, height, size - height - 1);
+            System.arraycopy(handles, height + 1, handles, height, size - height - 1);
+            size--;
+
+            // every checkpoint above the removed item included it, so they all have to go
+            int checkpoint = height / checkpointInterval;
+            while (checkpoints.size() > checkpoint + 1) {
+                checkpoints.remove(checkpoints.size() - 1);
+            }
+            top = checkpoints.get(checkpoint).clone();
+            long cells = 0;
+            for (int item = checkpoint * checkpointInterval; item < size; item++) {
+                heights[handles[item]] = item;
+                RollingKnapsack.applyItem(top, maxCapacity, weights[item], values[item]);
+                cells += RollingKnapsack.cellsFilled(maxCapacity, weights[item]);
+                if ((item + 1) % checkpointInterval == 0) {
+                    checkpoints.add(top.clone());
+                }
+            }
+            return cells;
+        }
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        KnapsackSession session = new KnapsackSession(50, 2);
+        int handles[] = new int[weights.length];
+        for (int item = 0; item < weights.length; item++) {
+            handles[item] = session.add(weights[item], values[item]);
+        }
+        System.out.println(session.best(50));
+
+        // without the first item (worth 70) the best knapsack changes
+        session.remove(handles[0]);
+        System.out.println(session.best(50));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+Knapsack Solutions:
+
+The tutorial version of knapSack() only returns the best value. Once the catalogs get large we also want to know WHICH items
+make up that value, so the solvers built on top of it return a KnapsackSolution: the best total value (as a long, so large
+totals can't overflow) and the indices of the chosen items in ascending order.
+
+Some solvers can be given a time budget. When the budget runs out they return the best solution found so far, and
+isOptimal() tells the caller whether the search actually finished.
+*/
+
+import java.util.Arrays;
+
+public class KnapsackSolution {
+
+    private final long value;
+    private final int[] items;
+    private final boolean optimal;
+
+    KnapsackSolution(long value, int[] items) {
+        this(value, items, true);
+    }
+
+    KnapsackSolution(long value, int[] items, boolean optimal) {
+        this.value = value;
+        this.items = items;
+        this.optimal = optimal;
+    }
+
+    // the best total value found
+    public long value() {
+        return value;
+    }
+
+    // indices (into the weights/values arrays) of the chosen items, in ascending order
+    public int[] items() {
+        return items.clone();
+    }
+
+    // false if the solver ran out of time before it could prove this is the best value
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    // total weight of the chosen items, given the weights the solution was computed from
+    public long weight(int[] weights) {
+        long total = 0;
+        for (int item : items) {
+            total += weights[item];
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "value=" + value + " items=" + Arrays.toString(items) + (optimal ? "" : " (best found so far)");
+    }
+}
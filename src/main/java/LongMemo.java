@@ -0,0 +1,289 @@
+/*
+A Shared Memo for long Keys:
+
+The tutorial's memo is a HashMap<Integer, Integer> that main() creates and throws away for every call. Every key and value
+is boxed, the map isn't safe to share between threads, and it grows until it runs out of memory.
+
+LongMemo is a memo that many solvers (and many threads) can share:
+
+Storage: open addressing. Keys and values live side by side in plain long[] arrays, and a key that collides just moves
+to the next free slot (linear probing). Nothing is boxed, and a lookup usually touches a single cache line.
+
+Threads: the table is split into stripes, picked by the key's hash, each with its own StampedLock. A writer locks only
+its stripe. A reader doesn't lock at all: it takes an optimistic stamp, probes, and then checks the stamp is still valid.
+Only if a writer got in the way does it retry under a read lock.
+
+Size: each stripe holds at most its share of maxEntries. When a stripe is full, the CLOCK algorithm picks the victim, a
+cheap stand-in for least-recently-used. Every hit sets the slot's "referenced" flag. The clock hand sweeps the slots,
+clearing the flags it passes, and evicts the first slot whose flag is already clear, so recently used entries survive a
+sweep. Deleting from a linear-probing table uses backward shifting: the entries after the hole that would no longer be
+found are moved back into it, so no tombstones pile up.
+
+Hits, misses and evictions are counted with LongAdders, which don't make the threads fight over one counter.
+
+A missing key reads as ABSENT (Long.MIN_VALUE), so that value itself can't be memoized.
+*/
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongUnaryOperator;
+
+public class LongMemo {
+
+    static final long ABSENT = Long.MIN_VALUE;
+
+    private final Stripe stripes[];
+    private final int stripeShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LongMemo(int maxEntries) {
+        this(maxEntries, 16);
+    }
+
+    // stripes is rounded up to a power of two
+    public LongMemo(int maxEntries, int stripes) {
+        if (maxEntries < 1 || stripes < 1 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("need maxEntries >= 1 and 1 <= stripes <= 65536: " + maxEntries + ", " + stripes);
+        }
+        int stripeCount = Integer.highestOneBit(Math.min(stripes, maxEntries) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+        int perStripe = (maxEntries + stripeCount - 1) / stripeCount;
+        for (int s = 0; s < stripeCount; s++) {
+            this.stripes[s] = new Stripe(perStripe);
+        }
+    }
+
+    // the memoized value for key, or ABSENT
+    public long get(long key) {
+        long hash = spread(key);
+        long value = stripeFor(hash).get(key, (int) hash);
+        if (value == ABSENT) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(long key, long value) {
+        if (value == ABSENT) {
+            throw new IllegalArgumentException("ABSENT can't be stored");
+        }
+        long hash = spread(key);
+        if (stripeFor(hash).put(key, (int) hash, value)) {
+            evictions.increment();
+        }
+    }
+
+    // the memoized value for key, computing and storing it first if needed. No lock is held while compute runs, so it
+    // may call back into this memo (which recursive solvers do); two threads may both compute the same missing key.
+    public long computeIfAbsent(long key, LongUnaryOperator compute) {
+        long value = get(key);
+        if (value == ABSENT) {
+            value = compute.applyAsLong(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LongMemo[size=" + size() + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "]";
+    }
+
+    private Stripe stripeFor(long hash) {
+        // the high bits pick the stripe and the low bits pick the slot, so the two choices don't correlate
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    // the murmur3 finalizer
+    private static long spread(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final int maxSize;
+        private final int mask;
+        private final long keys[];
+        private final long values[];
+        private final boolean used[];
+        // set on every hit without any locking: a lost update only makes CLOCK a little less accurate
+        private final byte referenced[];
+        private int size;
+        private int hand;
+
+        Stripe(int maxSize) {
+            // at most half full, so probe sequences stay short
+            int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) * 2;
+            this.maxSize = maxSize;
+            this.mask = capacity - 1;
+            this.keys = new long[capacity];
+            this.values = new long[capacity];
+            this.used = new boolean[capacity];
+            this.referenced = new byte[capacity];
+        }
+
+        long get(long key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            int slot = find(key, hash);
+            long value = slot < 0 ? ABSENT : values[slot];
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    slot = find(key, hash);
+                    value = slot < 0 ? ABSENT : values[slot];
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            if (slot >= 0) {
+                referenced[slot] = 1;
+            }
+            return value;
+        }
+
+        // returns whether an entry was evicted to make room
+        boolean put(long key, int hash, long value) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = find(key, hash);
+                if (slot >= 0) {
+                    values[slot] = value;
+                    return false;
+                }
+                boolean evicted = false;
+                if (size == maxSize) {
+                    evict();
+                    evicted = true;
+                }
+                slot = hash & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = value;
+                referenced[slot] = 0;
+                used[slot] = true;
+                size++;
+                return evicted;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.tryOptimisticRead();
+            int size = this.size;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    size = this.size;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return size;
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                Arrays.fill(used, false);
+                Arrays.fill(referenced, (byte) 0);
+                size = 0;
+                hand = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // the slot holding key, or -1. Bounded by the table size, because an optimistic reader can see a table that a
+        // writer is halfway through changing.
+        private int find(long key, int hash) {
+            int slot = hash & mask;
+            for (int probes = 0; probes <= mask && used[slot]; probes++) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // CLOCK: a slot that was used since the hand last passed gets a second chance
+        private void evict() {
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if (!used[slot]) {
+                    continue;
+                }
+                if (referenced[slot] != 0) {
+                    referenced[slot] = 0;
+                } else {
+                    delete(slot);
+                    return;
+                }
+            }
+        }
+
+        // backward-shift deletion: pull later entries of the probe run back into the hole when that's still on their
+        // way from their home slot
+        private void delete(int slot) {
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (!used[next]) {
+                    break;
+                }
+                int home = (int) spread(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    referenced[hole] = referenced[next];
+                    hole = next;
+                }
+            }
+            used[hole] = false;
+            referenced[hole] = 0;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+Meet in the Middle Knapsack:
+
+When there are only a few dozen items, 2^n subsets is too many to try one at a time, but 2^(n/2) is not: for 44 items,
+2^44 is about 17 trillion, while 2^22 is only about 4 million. So we split the items into two halves, list every subset
+of each half, and then combine the two lists.
+
+List the subsets of a half in order of weight.
+Just like in the Pareto frontier knapsack, a subset that weighs at least as much as a lighter one but isn't worth more is
+dominated, so we throw it away. What's left has values that go up with the weights.
+Walk through the second list from lightest to heaviest, while a pointer walks through the first list from heaviest to
+lightest: for every subset of the second half, the best partner is the heaviest subset of the first half that still fits.
+
+Listing the subsets in order doesn't need a sort, either. Start with the empty subset; for every item in the half, merge
+the current list with a copy of itself that includes the item. Both are already sorted, so each merge is linear.
+
+Everything lives in plain arrays of weights, values and bitmasks, and nothing depends on weightCap, so huge capacities
+are no problem. Like branch and bound, the search can be given a time budget and returns the best knapsack found so far
+if it runs out.
+*/
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MeetInTheMiddleKnapsack {
+
+    // 2^23 subsets per half is about as far as this is worth taking
+    static final int MAX_ITEMS = 46;
+
+    static KnapsackSolution solve(long weightCap, int weights[], int values[]) {
+        return solve(weightCap, weights, values, Long.MAX_VALUE);
+    }
+
+    static KnapsackSolution solve(long weightCap, int weights[], int values[], long budgetNanos) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        if (weights.length > MAX_ITEMS) {
+            throw new IllegalArgumentException("meet in the middle handles at most " + MAX_ITEMS + " items: " + weights.length);
+        }
+        long deadline = BranchAndBoundKnapsack.deadline(budgetNanos);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        KnapsackSolution solution = search(weightCap, weights, values, deadline, instrumented);
+        instrumented.finish("meet-in-the-middle", weights.length, weightCap);
+        return solution;
+    }
+
+    private static KnapsackSolution search(long weightCap, int weights[], int values[], long deadline,
+            SolverInstrumentation.KnapsackSolve instrumented) {
+
+        // start from the greedy knapsack, so there is always an answer if we run out of time
+        int order[] = BranchAndBoundKnapsack.byDensity(weightCap, weights, values);
+        boolean greedyTaken[] = BranchAndBoundKnapsack.greedy(weightCap, weights, order);
+        boolean chosen[] = new boolean[weights.length];
+        long best = 0;
+        for (int k = 0; k < order.length; k++) {
+            if (greedyTaken[k]) {
+                chosen[order[k]] = true;
+                best += values[order[k]];
+            }
+        }
+
+        int half = weights.length / 2;
+        Subsets first = Subsets.enumerate(0, half, weightCap, weights, values, deadline, instrumented);
+        Subsets second = first == null ? null
+                : Subsets.enumerate(half, weights.length, weightCap, weights, values, deadline, instrumented);
+        if (second == null) {
+            return new KnapsackSolution(best, RollingKnapsack.toSolution(chosen, values).items(), false);
+        }
+
+        int bestFirst = -1;
+        int bestSecond = -1;
+        boolean timedOut = false;
+        int a = first.size - 1;
+        for (int b = 0; b < second.size; b++) {
+            while (a >= 0 && first.weights[a] + second.weights[b] > weightCap) {
+                a--;
+            }
+            if (a < 0) {
+                break;
+            }
+            long total = first.values[a] + second.values[b];
+            if (total > best) {
+                best = total;
+                bestFirst = a;
+                bestSecond = b;
+            }
+            if ((b & 4095) == 4095 && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+                break;
+            }
+        }
+
+        if (bestFirst >= 0) {
+            Arrays.fill(chosen, false);
+            for (int item = 0; item < half; item++) {
+                chosen[item] = (first.masks[bestFirst] >>> item & 1) != 0;
+            }
+            for (int item = half; item < weights.length; item++) {
+                chosen[item] = (second.masks[bestSecond] >>> (item - half) & 1) != 0;
+            }
+        }
+        KnapsackSolution solution = RollingKnapsack.toSolution(chosen, values);
+        return new KnapsackSolution(solution.value(), solution.items(), !timedOut);
+    }
+
+    // the non-dominated subsets of items [from, to), sorted by weight; bit k of a mask is item from + k
+    private static final class Subsets {
+        long weights[];
+        long values[];
+        int masks[];
+        int size;
+
+        // returns null if the deadline passes before the list is complete; the subsets kept are added to instrumented
+        static Subsets enumerate(int from, int to, long weightCap, int itemWeights[], int itemValues[], long deadline,
+                SolverInstrumentation.KnapsackSolve instrumented) {
+            int capacity = 1 << (to - from);
+            Subsets current = new Subsets(capacity);
+            Subsets merged = new Subsets(capacity);
+            current.size = 1;
+
+            for (int item = from; item < to; item++) {
+                long itemWeight = itemWeights[item];
+                long itemValue = itemValues[item];
+                int bit = 1 << (item - from);
+
+                // the subsets that can still take the item are a prefix of the list
+                int fits = current.size;
+                while (fits > 0 && current.weights[fits - 1] + itemWeight > weightCap) {
+                    fits--;
+                }
+
+                merged.size = 0;
+                int a = 0;
+                int b = 0;
+                long lastValue = -1;
+                while (a < current.size || b < fits) {
+                    boolean takeShifted;
+                    if (b >= fits) {
+                        takeShifted = false;
+                    } else if (a >= current.size) {
+                        takeShifted = true;
+                    } else {
+                        long shiftedWeight = current.weights[b] + itemWeight;
+                        takeShifted = shiftedWeight < current.weights[a]
+                                || (shiftedWeight == current.weights[a] && current.values[b] + itemValue > current.values[a]);
+                    }
+                    long weight;
+                    long value;
+                    int mask;
+                    if (takeShifted) {
+                        weight = current.weights[b] + itemWeight;
+                        value = current.values[b] + itemValue;
+                        mask = current.masks[b] | bit;
+                        b++;
+                    } else {
+                        weight = current.weights[a];
+                        value = current.values[a];
+                        mask = current.masks[a];
+                        a++;
+                    }
+                    // heavier but not worth more than the last subset we kept: dominated
+                    if (value > lastValue) {
+                        merged.weights[merged.size] = weight;
+                        merged.values[merged.size] = value;
+                        merged.masks[merged.size] = mask;
+                        merged.size++;
+                        lastValue = value;
+                    }
+                }
+
+                Subsets swap = current;
+                current = merged;
+                merged = swap;
+                instrumented.addCells(current.size);
+                if (System.nanoTime() - deadline > 0) {
+                    return null;
+                }
+            }
+            return current;
+        }
+
+        private Subsets(int capacity) {
+            weights = new long[capacity];
+            values = new long[capacity];
+            masks = new int[capacity];
+        }
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        System.out.println(solve(50, weights, values));
+
+        Random random = new Random(7);
+        int bigWeights[] = new int[40];
+        int bigValues[] = new int[40];
+        for (int item = 0; item < bigWeights.length; item++) {
+            bigWeights[item] = random.nextInt(Integer.MAX_VALUE);
+            bigValues[item] = random.nextInt(1_000_000);
+        }
+        long weightCap = 10L * Integer.MAX_VALUE;
+        System.out.println(solve(weightCap, bigWeights, bigValues, 2_000_000_000L));
+        System.out.println(BranchAndBoundKnapsack.solve(weightCap, bigWeights, bigValues, 2_000_000_000L));
+    }
+}
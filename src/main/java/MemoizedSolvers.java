@@ -0,0 +1,122 @@
+/*
+Memoized Solvers on a Shared Memo:
+
+The tutorial's fibMemo() and recursive knapSack(), rewritten to keep their subproblems in a LongMemo instead of a
+throwaway HashMap (or nothing at all, in knapSack's case).
+
+fibMemo(n) shares one memo between every caller in the program, so once any thread has computed fib(50), every later
+call for fib(50) or below is answered straight from the memo. The answers are longs, which hold every Fibonacci number up
+to fib(92); anything bigger throws an ArithmeticException instead of quietly overflowing (FibonacciEngine.fib() handles
+those).
+
+A knapsack subproblem is "the best value from the first i items with capacity weightCap", so the pair (i, weightCap) is
+packed into one long key: i in the high 32 bits and weightCap in the low 32. Those subproblems only make sense for one
+set of items, so each MemoizedKnapsack owns its memo. Threads that share the instance share every subproblem any of them
+has already solved, whatever capacity they ask about.
+
+Every memo lookup is also reported to the installed SolverMetrics as a hit or a miss (a miss is a subproblem that had to
+be evaluated).
+*/
+
+public class MemoizedSolvers {
+
+    // fib(93) doesn't fit in a long
+    static final int MAX_LONG_FIB = 92;
+
+    private static final LongMemo FIB_MEMO = new LongMemo(MAX_LONG_FIB + 1, 1);
+
+    private MemoizedSolvers() {
+    }
+
+    public static long fibMemo(int n) {
+        return fibMemo(n, FIB_MEMO);
+    }
+
+    // fibMemo() on a memo of the caller's choosing, like the tutorial's fibMemo(n, map)
+    public static long fibMemo(int n, LongMemo memo) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative: " + n);
+        }
+        if (n > MAX_LONG_FIB) {
+            throw new ArithmeticException("fib(" + n + ") doesn't fit in a long");
+        }
+        // base case
+        if (n <= 1) {
+            return n;
+        }
+        long value = memo.get(n);
+        if (value != LongMemo.ABSENT) {
+            SolverInstrumentation.metrics().memoHit(SolverInstrumentation.FIB_MEMO);
+            return value;
+        }
+        SolverInstrumentation.metrics().memoMiss(SolverInstrumentation.FIB_MEMO);
+        value = fibMemo(n - 1, memo) + fibMemo(n - 2, memo);
+        memo.put(n, value);
+        return value;
+    }
+
+    // hit/miss statistics for the shared Fibonacci memo
+    static LongMemo fibMemoStats() {
+        return FIB_MEMO;
+    }
+
+    public static final class MemoizedKnapsack {
+        private final int weights[];
+        private final int values[];
+        private final LongMemo memo;
+
+        public MemoizedKnapsack(int weights[], int values[], int maxEntries) {
+            RollingKnapsack.checkInputs(0, weights, values);
+            this.weights = weights.clone();
+            this.values = values.clone();
+            this.memo = new LongMemo(maxEntries);
+        }
+
+        // the best value from all the items with capacity weightCap
+        public long knapSack(int weightCap) {
+            if (weightCap < 0) {
+                throw new IllegalArgumentException("weightCap must not be negative: " + weightCap);
+            }
+            return knapSack(weightCap, weights.length);
+        }
+
+        // the best value from the first i items with capacity weightCap
+        private long knapSack(int weightCap, int i) {
+            // base case (not weightCap == 0 as in the tutorial: items that weigh nothing still fit in an empty knapsack)
+            if (i == 0) {
+                return 0;
+            }
+            long key = (long) i << 32 | weightCap;
+            long best = memo.get(key);
+            if (best != LongMemo.ABSENT) {
+                SolverInstrumentation.metrics().memoHit(SolverInstrumentation.KNAPSACK_MEMO);
+                return best;
+            }
+            SolverInstrumentation.metrics().memoMiss(SolverInstrumentation.KNAPSACK_MEMO);
+            best = knapSack(weightCap, i - 1);
+            if (weights[i - 1] <= weightCap) {
+                best = Math.max(best, values[i - 1] + knapSack(weightCap - weights[i - 1], i - 1));
+            }
+            memo.put(key, best);
+            return best;
+        }
+
+        public LongMemo memo() {
+            return memo;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println(fibMemo(10));
+        System.out.println(fibMemo(20));
+        System.out.println(fibMemo(MAX_LONG_FIB));
+        System.out.println(fibMemoStats());
+
+        int weights[] = new int[] { 1, 2, 4, 2, 5 };
+        int values[] = new int[] { 5, 3, 5, 3, 2 };
+        MemoizedKnapsack knapsack = new MemoizedKnapsack(weights, values, 1 << 10);
+        System.out.println(knapsack.knapSack(10));
+        System.out.println(knapsack.knapSack(6));
+        System.out.println(knapsack.memo());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+Parallel Knapsack:
+
+Every element in row index of the knapsack matrix only depends on row index - 1. That means the elements of a single row
+don't depend on each other at all, so we can split the capacity range of a row into blocks and fill those blocks on
+different cores at the same time:
+
+for every item:
+    split the weights 0...weightCap into blocks
+    in parallel, for every block:
+        for every weight in the block:
+            next[weight] = max(previous[weight], value of item + previous[weight - weight of item])
+    wait for all of the blocks, then next becomes previous
+
+Because every block writes to its own part of next and only reads from previous, the result is exactly the same as the
+sequential solver. Splitting a row has a cost, so small rows (fewer elements than sequentialCutoff) are filled on the
+calling thread instead.
+*/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelKnapsack {
+
+    static final int DEFAULT_BLOCK_SIZE = 1 << 14;
+    static final int DEFAULT_SEQUENTIAL_CUTOFF = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+    private final int sequentialCutoff;
+
+    public ParallelKnapsack() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE, DEFAULT_SEQUENTIAL_CUTOFF);
+    }
+
+    public ParallelKnapsack(ForkJoinPool pool, int blockSize, int sequentialCutoff) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        if (sequentialCutoff < 1) {
+            throw new IllegalArgumentException("sequentialCutoff must be positive: " + sequentialCutoff);
+        }
+        this.pool = pool;
+        this.blockSize = blockSize;
+        this.sequentialCutoff = sequentialCutoff;
+    }
+
+    // best value for the items; identical to RollingKnapsack.knapSack(), but each row is filled on the pool
+    long knapSack(int weightCap, int weights[], int values[]) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long best;
+        if (weightCap + 1 < sequentialCutoff) {
+            best = RollingKnapsack.bestValue(weightCap, weights, values);
+        } else {
+            long previous[] = new long[weightCap + 1];
+            long next[] = new long[weightCap + 1];
+            for (int item = 0; item < weights.length; item++) {
+                pool.invoke(new RowBlock(previous, next, weights[item], values[item], 0, weightCap + 1, blockSize));
+                long swap[] = previous;
+                previous = next;
+                next = swap;
+            }
+            best = previous[weightCap];
+        }
+        instrumented.addCells(RollingKnapsack.cellsFilled(weightCap, weights));
+        instrumented.finish("parallel", weights.length, weightCap);
+        return best;
+    }
+
+    // fills next[from...to) from previous for a single item, splitting in half until the block is small enough
+    private static final class RowBlock extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long previous[];
+        private final long next[];
+        private final int itemWeight;
+        private final int value;
+        private final int from;
+        private final int to;
+        private final int blockSize;
+
+        RowBlock(long previous[], long next[], int itemWeight, int value, int from, int to, int blockSize) {
+            this.previous = previous;
+            this.next = next;
+            this.itemWeight = itemWeight;
+            this.value = value;
+            this.from = from;
+            this.to = to;
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= blockSize) {
+                fill(previous, next, itemWeight, value, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowBlock(previous, next, itemWeight, value, from, mid, blockSize),
+                    new RowBlock(previous, next, itemWeight, value, mid, to, blockSize));
+        }
+    }
+
+    static void fill(long previous[], long next[], int itemWeight, int value, int from, int to) {
+        // weights smaller than the item can't hold it, so they keep the element one row above
+        int split = Math.min(Math.max(from, itemWeight), to);
+        System.arraycopy(previous, from, next, from, split - from);
+        for (int weight = split; weight < to; weight++) {
+            next[weight] = Math.max(previous[weight], value + previous[weight - itemWeight]);
+        }
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        int weightCap = 50;
+        ParallelKnapsack parallel = new ParallelKnapsack(ForkJoinPool.commonPool(), 8, 1);
+        System.out.println(parallel.knapSack(weightCap, weights, values));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+Parallel Segmented Sieve:
+
+The segmented sieve splits a range into windows that only share one thing: the base primes up to the square root of the
+end of the range. Once those are known (and they never change), every window can be sieved completely on its own. That
+makes it easy to spread the work over every core:
+
+find the base primes up to sqrt(hi), once, shared by everyone
+split the windows of [lo, hi) between the threads of a ForkJoinPool
+each thread sieves its windows with its own scratch bitset and counts the bits that are left
+add up the counts
+
+Nothing is shared between threads except the read-only base primes, so the count scales with the number of cores.
+
+primes() does the same thing as an ordered parallel LongStream: each window becomes its own little stream of primes, and
+flatMap() stitches them back together in order, no matter which thread finished first. Like any parallel stream, it runs
+on the pool that runs its terminal operation (the common pool, unless it's started from inside another ForkJoinPool), so
+the pool given to the constructor is only used by count(). To run primes() on a pool of your own, start its terminal
+operation there:
+
+long primes[] = pool.submit(() -> sieve.primes(lo, hi).toArray()).join();
+*/
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
+
+public class ParallelPrimeSieve {
+
+    private final ForkJoinPool pool;
+    private final int segmentBits;
+
+    public ParallelPrimeSieve() {
+        this(ForkJoinPool.commonPool(), SegmentedPrimeIterator.DEFAULT_SEGMENT_BITS);
+    }
+
+    // pool runs count(); primes() runs on whichever pool runs its terminal operation
+    public ParallelPrimeSieve(ForkJoinPool pool, int segmentBits) {
+        if (segmentBits < 64 || segmentBits % 64 != 0) {
+            throw new IllegalArgumentException("segmentBits must be a positive multiple of 64: " + segmentBits);
+        }
+        this.pool = pool;
+        this.segmentBits = segmentBits;
+    }
+
+    // how many primes p there are with lo <= p < hi
+    public long count(long lo, long hi) {
+        checkRange(lo, hi);
+        if (hi - lo == 0) {
+            return 0;
+        }
+        WheelSieve basePrimes = new WheelSieve(Math.max(7, SegmentedPrimeIterator.sqrt(hi - 1)));
+        long segments = segments(lo, hi);
+        // a few leaves per thread keeps every core busy even if some windows are slower than others
+        long leafSegments = Math.max(1, segments / (pool.getParallelism() * 8L));
+        long count = pool.invoke(new CountTask(basePrimes, lo, hi, segmentBits, 0, segments, leafSegments));
+        return lo <= 2 && 2 < hi ? count + 1 : count;
+    }
+
+    // the primes p with lo <= p < hi as an ordered parallel stream, sieved on the pool of its terminal operation (not on
+    // this sieve's pool)
+    public LongStream primes(long lo, long hi) {
+        checkRange(lo, hi);
+        if (hi - lo == 0) {
+            return LongStream.empty();
+        }
+        WheelSieve basePrimes = new WheelSieve(Math.max(7, SegmentedPrimeIterator.sqrt(hi - 1)));
+        LongStream odd = LongStream.range(0, segments(lo, hi)).parallel().flatMap(segment -> {
+            long from = segmentStart(lo, segment);
+            long to = Math.min(hi, from + 2L * segmentBits);
+            if (to < from) {
+                to = hi;
+            }
+            long bits[] = new long[segmentBits / 64];
+            int count = SegmentedPrimeIterator.sieveSegment(from, to, basePrimes, bits);
+            long firstOdd = from | 1;
+            LongStream.Builder primes = LongStream.builder();
+            for (int word = 0; word < (count + 63) / 64; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    primes.add(firstOdd + 2 * ((long) word * 64 + Long.numberOfTrailingZeros(remaining)));
+                    remaining &= remaining - 1;
+                }
+            }
+            return primes.build();
+        });
+        return lo <= 2 && 2 < hi ? LongStream.concat(LongStream.of(2), odd).parallel() : odd;
+    }
+
+    private long segments(long lo, long hi) {
+        long span = 2L * segmentBits;
+        return (hi - lo) / span + ((hi - lo) % span == 0 ? 0 : 1);
+    }
+
+    private long segmentStart(long lo, long segment) {
+        return lo + segment * 2L * segmentBits;
+    }
+
+    private static void checkRange(long lo, long hi) {
+        if (lo < 0 || hi < lo) {
+            throw new IllegalArgumentException("need 0 <= lo <= hi: " + lo + ", " + hi);
+        }
+    }
+
+    // counts the odd primes in windows [first, last) of the range, splitting in half down to leafSegments windows
+    private static final class CountTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final WheelSieve basePrimes;
+        private final long lo;
+        private final long hi;
+        private final int segmentBits;
+        private final long first;
+        private final long last;
+        private final long leafSegments;
+
+        CountTask(WheelSieve basePrimes, long lo, long hi, int segmentBits, long first, long last, long leafSegments) {
+            this.basePrimes = basePrimes;
+            this.lo = lo;
+            this.hi = hi;
+            this.segmentBits = segmentBits;
+            this.first = first;
+            this.last = last;
+            this.leafSegments = leafSegments;
+        }
+
+        @Override
+        protected Long compute() {
+            if (last - first <= leafSegments) {
+                return countLeaf();
+            }
+            long mid = (first + last) >>> 1;
+            CountTask left = new CountTask(basePrimes, lo, hi, segmentBits, first, mid, leafSegments);
+            CountTask right = new CountTask(basePrimes, lo, hi, segmentBits, mid, last, leafSegments);
+            left.fork();
+            long rightCount = right.compute();
+            return left.join() + rightCount;
+        }
+
+        private long countLeaf() {
+            long bits[] = new long[segmentBits / 64];
+            long count = 0;
+            for (long segment = first; segment < last; segment++) {
+                long from = lo + segment * 2L * segmentBits;
+                long to = from + 2L * segmentBits;
+                if (to < from || to > hi) {
+                    to = hi;
+                }
+                int used = SegmentedPrimeIterator.sieveSegment(from, to, basePrimes, bits);
+                for (int word = 0; word < (used + 63) / 64; word++) {
+                    count += Long.bitCount(bits[word]);
+                }
+            }
+            return count;
+        }
+    }
+
+    public static void main(String[] args) {
+        ParallelPrimeSieve sieve = new ParallelPrimeSieve();
+        System.out.println(Arrays.toString(sieve.primes(0, 100).toArray()));
+        ForkJoinPool twoThreads = new ForkJoinPool(2);
+        System.out.println(twoThreads.submit(() -> sieve.primes(1_000_000, 1_000_100).toArray()).join().length
+                + " primes between 1,000,000 and 1,000,100, sieved on a pool of two");
+        twoThreads.shutdown();
+        long start = System.nanoTime();
+        long count = sieve.count(0, 1_000_000_000L);
+        System.out.println(count + " primes below 10^9 in " + (System.nanoTime() - start) / 1_000_000 + " ms on "
+                + ForkJoinPool.commonPool().getParallelism() + " threads");
+    }
+}
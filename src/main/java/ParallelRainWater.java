@@ -0,0 +1,193 @@
+/*
+Capturing Rainwater in Parallel:
+
+efficientSolution()'s two pointers walk towards each other one bar at a time, and each step depends on the one before, so
+only one core can ever work on it. But the water above bar i only depends on two numbers:
+
+water[i] = min(highest bar in heights[0 ... i], highest bar in heights[i ... n - 1]) - heights[i]
+
+The obvious parallel version builds those two running maximums as two extra arrays of n ints. For a billion heights that
+is 8 GB more memory, and three full trips through it. Cutting the heights into blocks avoids both:
+
+1. In parallel, find the highest bar of every block.
+2. From those (there are only n / blockSize of them), work out each block's carries: leftBound, the highest bar in all the
+   blocks to its left, and rightBound, the highest bar in all the blocks to its right.
+3. In parallel, run the two-pointer solution on every block separately, except the pointers start out with leftBound and
+   rightBound instead of 0, as if the rest of the histogram were squeezed into two walls at the block's ends. Then add up
+   the blocks' water.
+
+Each height is read twice, and the only extra memory is two ints per block. The total is a long, and it is the same
+number efficientSolution() computes (when that doesn't overflow an int).
+*/
+
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelRainWater {
+
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+
+    public ParallelRainWater() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE);
+    }
+
+    public ParallelRainWater(ForkJoinPool pool, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.pool = pool;
+        this.blockSize = blockSize;
+    }
+
+    public long totalWater(int heights[]) {
+        int n = heights.length;
+        if (n == 0) {
+            return 0;
+        }
+        int blocks = (int) (((long) n + blockSize - 1) / blockSize);
+        // a few leaves per thread keeps every core busy even if some blocks finish sooner
+        int leafBlocks = Math.max(1, blocks / (pool.getParallelism() * 8));
+
+        // 1. every block's highest bar (its left carry and right carry get filled in next)
+        int leftBound[] = new int[blocks];
+        int rightBound[] = new int[blocks];
+        pool.invoke(new MaxTask(heights, blockSize, 0, blocks, leafBlocks, leftBound));
+
+        // 2. the carries
+        int running = Integer.MIN_VALUE;
+        for (int block = 0; block < blocks; block++) {
+            int blockMax = leftBound[block];
+            leftBound[block] = running;
+            running = Math.max(running, blockMax);
+            rightBound[block] = blockMax;
+        }
+        running = Integer.MIN_VALUE;
+        for (int block = blocks - 1; block >= 0; block--) {
+            int blockMax = rightBound[block];
+            rightBound[block] = running;
+            running = Math.max(running, blockMax);
+        }
+
+        // 3. the water in every block
+        return pool.invoke(new WaterTask(heights, blockSize, 0, blocks, leafBlocks, leftBound, rightBound));
+    }
+
+    // the two-pointer solution on heights[left ... right], with walls of leftBound and rightBound outside it
+    static long blockWater(int heights[], int left, int right, int leftBound, int rightBound) {
+        return blockWater(IntBuffer.wrap(heights), left, right, leftBound, rightBound);
+    }
+
+    // ... reading the heights from a buffer, such as a view of a mapped file. With walls of Integer.MIN_VALUE this is
+    // efficientSolution() on the whole of heights[left ... right].
+    static long blockWater(IntBuffer heights, int left, int right, int leftBound, int rightBound) {
+        long water = 0;
+        while (left <= right) {
+            int leftCandidate = Math.max(leftBound, heights.get(left));
+            int rightCandidate = Math.max(rightBound, heights.get(right));
+            if (leftCandidate <= rightCandidate) {
+                leftBound = leftCandidate;
+                water += (long) leftBound - heights.get(left);
+                left++;
+            } else {
+                rightBound = rightCandidate;
+                water += (long) rightBound - heights.get(right);
+                right--;
+            }
+        }
+        return water;
+    }
+
+    // writes the highest bar of each block in [first, last) into blockMax
+    private static final class MaxTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int heights[];
+        private final int blockSize;
+        private final int first;
+        private final int last;
+        private final int leafBlocks;
+        private final int blockMax[];
+
+        MaxTask(int heights[], int blockSize, int first, int last, int leafBlocks, int blockMax[]) {
+            this.heights = heights;
+            this.blockSize = blockSize;
+            this.first = first;
+            this.last = last;
+            this.leafBlocks = leafBlocks;
+            this.blockMax = blockMax;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first <= leafBlocks) {
+                for (int block = first; block < last; block++) {
+                    int from = block * blockSize;
+                    int to = (int) Math.min(heights.length, (long) from + blockSize);
+                    int max = Integer.MIN_VALUE;
+                    for (int i = from; i < to; i++) {
+                        max = Math.max(max, heights[i]);
+                    }
+                    blockMax[block] = max;
+                }
+                return;
+            }
+            int mid = (first + last) >>> 1;
+            invokeAll(new MaxTask(heights, blockSize, first, mid, leafBlocks, blockMax),
+                    new MaxTask(heights, blockSize, mid, last, leafBlocks, blockMax));
+        }
+    }
+
+    // adds up the water in blocks [first, last)
+    private static final class WaterTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int heights[];
+        private final int blockSize;
+        private final int first;
+        private final int last;
+        private final int leafBlocks;
+        private final int leftBound[];
+        private final int rightBound[];
+
+        WaterTask(int heights[], int blockSize, int first, int last, int leafBlocks, int leftBound[], int rightBound[]) {
+            this.heights = heights;
+            this.blockSize = blockSize;
+            this.first = first;
+            this.last = last;
+            this.leafBlocks = leafBlocks;
+            this.leftBound = leftBound;
+            this.rightBound = rightBound;
+        }
+
+        @Override
+        protected Long compute() {
+            if (last - first <= leafBlocks) {
+                long water = 0;
+                for (int block = first; block < last; block++) {
+                    int from = block * blockSize;
+                    int to = (int) Math.min(heights.length, (long) from + blockSize);
+                    water += blockWater(heights, from, to - 1, leftBound[block], rightBound[block]);
+                }
+                return water;
+            }
+            int mid = (first + last) >>> 1;
+            WaterTask left = new WaterTask(heights, blockSize, first, mid, leafBlocks, leftBound, rightBound);
+            WaterTask right = new WaterTask(heights, blockSize, mid, last, leafBlocks, leftBound, rightBound);
+            left.fork();
+            long rightWater = right.compute();
+            return left.join() + rightWater;
+        }
+    }
+
+    public static void main(String[] args) {
+        // heights: array representation of the histogram
+        int heights[] = new int[] { 4, 2, 1, 3, 0, 1, 2 };
+        ParallelRainWater rainWater = new ParallelRainWater(ForkJoinPool.commonPool(), 2);
+        System.out.println("Amount of water captured: " + rainWater.totalWater(heights));
+    }
+}
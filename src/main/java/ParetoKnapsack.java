@@ -0,0 +1,202 @@
+/*
+Pareto Frontier Knapsack:
+
+The dynamic programming knapsack fills weightCap + 1 columns for every item. That's fine when weights are small whole
+numbers, but when the weights are measured in grams and the knapsack holds 10^9 of them, no table is going to fit.
+
+Most of those columns are wasted anyway: the value in a row only changes at a handful of weights. So instead of a row, we
+keep a list of (weight, value) pairs that are worth keeping. A pair is dominated (not worth keeping) when some other pair
+weighs the same or less and is worth at least as much. The pairs that are left are called the Pareto frontier, and when
+they are sorted by weight their values are strictly increasing.
+
+Adding an item works a lot like merging two sorted lists:
+
+frontier = [(0, 0)]
+for every item:
+    shifted = every pair in frontier with the item added, as long as it still fits under weightCap
+    merge frontier and shifted by weight
+    keep a pair only if its value is higher than the last pair we kept
+the best value is the value of the last pair in frontier
+
+The cost of each item is the size of the frontier, not weightCap, and the pairs live in plain long arrays, so nothing
+gets boxed.
+*/
+
+/*
+Picking a Solver:
+
+Neither approach always wins. A dense row costs n * (weightCap + 1) cells no matter what. The frontier can never hold more
+than weightCap + 1 pairs, or more pairs than there are distinct totals of the values seen so far, and it can at most double
+with every item, so we can put an upper bound on its cost before we start. knapSackAuto() compares the two:
+
+If the table can't be allocated, or the frontier's upper bound is cheaper than the table, use the frontier.
+Otherwise try the frontier anyway with a budget equal to the table's cost (real frontiers are usually much smaller than
+the bound), and switch to the table if it runs out.
+*/
+
+public class ParetoKnapsack {
+
+    // the biggest table the automatic solver is willing to allocate: a 128 MB row (see denseCapacityLimit())
+    static final int MAX_DENSE_CAPACITY = 1 << 24;
+
+    // merging a pair is branchy and touches two arrays, so it costs roughly sixteen table cells
+    static final long MERGE_COST = 16;
+
+    // best value for the items, in time proportional to the size of the Pareto frontier
+    static long knapSack(long weightCap, int weights[], int values[]) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long best = frontierKnapSack(weightCap, weights, values, Long.MAX_VALUE, instrumented);
+        instrumented.finish("pareto", weights.length, weightCap);
+        return best;
+    }
+
+    // picks the frontier or the dense table based on what each one is expected to cost
+    static long knapSackAuto(long weightCap, int weights[], int values[]) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long best = autoKnapSack(weightCap, weights, values, instrumented);
+        instrumented.finish("pareto-auto", weights.length, weightCap);
+        return best;
+    }
+
+    private static long autoKnapSack(long weightCap, int weights[], int values[],
+            SolverInstrumentation.KnapsackSolve instrumented) {
+        if (weightCap > denseCapacityLimit()) {
+            return frontierKnapSack(weightCap, weights, values, Long.MAX_VALUE, instrumented);
+        }
+        long denseCost = (long) weights.length * (weightCap + 1);
+        long frontierBound = estimateFrontierCost(weightCap, values) * MERGE_COST;
+        if (frontierBound <= denseCost) {
+            return frontierKnapSack(weightCap, weights, values, Long.MAX_VALUE, instrumented);
+        }
+        long best = frontierKnapSack(weightCap, weights, values, denseCost / MERGE_COST, instrumented);
+        if (best >= 0) {
+            return best;
+        }
+        instrumented.addCells(RollingKnapsack.cellsFilled(weightCap, weights));
+        return RollingKnapsack.bestValue((int) weightCap, weights, values);
+    }
+
+    // MAX_DENSE_CAPACITY, or less on a small heap, so the row never takes more than a quarter of it
+    static long denseCapacityLimit() {
+        return Math.min(MAX_DENSE_CAPACITY, Runtime.getRuntime().maxMemory() / 4 / Long.BYTES - 1);
+    }
+
+    // upper bound on the total number of pairs the frontier will hold across all of the items
+    static long estimateFrontierCost(long weightCap, int values[]) {
+        long size = 1;
+        long valueSum = 0;
+        long total = 0;
+        for (int value : values) {
+            valueSum += value;
+            // the frontier's values are distinct whole numbers between 0 and valueSum
+            size = Math.min(Math.min(size * 2, weightCap + 1), valueSum + 1);
+            total += size;
+            if (total < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return total;
+    }
+
+    // returns -1 if the frontiers hold more than pairBudget pairs in total; the pairs merged are added to instrumented
+    private static long frontierKnapSack(long weightCap, int weights[], int values[], long pairBudget,
+            SolverInstrumentation.KnapsackSolve instrumented) {
+        long frontierWeights[] = new long[16];
+        long frontierValues[] = new long[16];
+        long mergedWeights[] = new long[16];
+        long mergedValues[] = new long[16];
+        int size = 1;
+        long pairs = 0;
+
+        for (int item = 0; item < weights.length; item++) {
+            int itemWeight = weights[item];
+            int value = values[item];
+            if (mergedWeights.length < 2 * size) {
+                int length = Math.max(2 * size, mergedWeights.length * 2);
+                mergedWeights = new long[length];
+                mergedValues = new long[length];
+            }
+
+            // the shifted pairs are sorted by weight too, so the ones that still fit are a prefix
+            int fits = size;
+            while (fits > 0 && frontierWeights[fits - 1] + itemWeight > weightCap) {
+                fits--;
+            }
+
+            int kept = 0;
+            int a = 0;
+            int b = 0;
+            long lastValue = -1;
+            while (a < size && b < fits) {
+                long shiftedWeight = frontierWeights[b] + itemWeight;
+                long shiftedValue = frontierValues[b] + value;
+                long weight;
+                long total;
+                if (shiftedWeight < frontierWeights[a]
+                        || (shiftedWeight == frontierWeights[a] && shiftedValue > frontierValues[a])) {
+                    weight = shiftedWeight;
+                    total = shiftedValue;
+                    b++;
+                } else {
+                    weight = frontierWeights[a];
+                    total = frontierValues[a];
+                    a++;
+                }
+                // a pair that isn't worth more than a lighter one is dominated
+                if (total > lastValue) {
+                    mergedWeights[kept] = weight;
+                    mergedValues[kept] = total;
+                    kept++;
+                    lastValue = total;
+                }
+            }
+            for (; a < size; a++) {
+                if (frontierValues[a] > lastValue) {
+                    mergedWeights[kept] = frontierWeights[a];
+                    mergedValues[kept] = frontierValues[a];
+                    kept++;
+                    lastValue = frontierValues[a];
+                }
+            }
+            for (; b < fits; b++) {
+                if (frontierValues[b] + value > lastValue) {
+                    mergedWeights[kept] = frontierWeights[b] + itemWeight;
+                    mergedValues[kept] = frontierValues[b] + value;
+                    kept++;
+                    lastValue = frontierValues[b] + value;
+                }
+            }
+
+            long swap[] = frontierWeights;
+            frontierWeights = mergedWeights;
+            mergedWeights = swap;
+            swap = frontierValues;
+            frontierValues = mergedValues;
+            mergedValues = swap;
+            size = kept;
+
+            pairs += size + fits;
+            if (pairs > pairBudget) {
+                instrumented.addCells(pairs);
+                return -1;
+            }
+        }
+        instrumented.addCells(pairs);
+        return frontierValues[size - 1];
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        System.out.println(knapSack(50, weights, values));
+
+        // the same items weighed in much smaller units: the capacity is far too big for a comfortable table
+        int heavyWeights[] = new int[weights.length];
+        for (int item = 0; item < weights.length; item++) {
+            heavyWeights[item] = weights[item] * 1_000_000;
+        }
+        System.out.println(knapSackAuto(50_000_000L, heavyWeights, values));
+    }
+}
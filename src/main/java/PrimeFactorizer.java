@@ -0,0 +1,277 @@
+/*
+Factoring with a Sieve:
+
+The list of primes from the sieve can be used to factor numbers by trial division: try dividing by 2, 3, 5, 7, ... until
+the number is used up. That's slow, because most of those divisions fail. A slightly different sieve remembers, for every
+number, its SMALLEST prime factor (spf). Then factoring never guesses:
+
+while n > 1:
+    p = spf[n]
+    divide n by p, and count how many times it went in
+
+The linear sieve builds that table and writes every entry exactly once, unlike the sieve of Eratosthenes, which crosses
+out 12 both as a multiple of 2 and as a multiple of 3:
+
+for every i from 2 to limit:
+    if spf[i] is still empty: i is prime, so spf[i] = i and i goes on the list of primes
+    for every prime p on the list, as long as p <= spf[i] and i * p <= limit:
+        spf[i * p] = p
+
+Two tricks keep the table small. Even numbers always have 2 as their smallest factor, so only odd numbers are stored. And
+a composite's smallest factor is at most sqrt(limit), which fits in 16 bits for any int limit, so the table is a char[]
+with 0 standing for "prime, so its smallest factor is itself". That's one byte per number.
+
+Numbers bigger than the table are split with Pollard's rho algorithm (with a Miller-Rabin test to tell when a piece is
+prime) until the pieces are small enough for the table.
+
+The batch factorize() writes its answers into arrays the caller hands in, so factoring a million numbers doesn't create a
+million little lists.
+*/
+
+import java.util.Arrays;
+
+public class PrimeFactorizer {
+
+    // 2 * 3 * 5 * 7 * 11 * 13 * 17 * 19 * 23 is the largest product of distinct primes that fits in an int
+    static final int MAX_DISTINCT_FACTORS = 9;
+
+    private static final int WITNESSES[] = { 2, 3, 5, 7 };
+
+    private final int limit;
+
+    // smallestFactor[n / 2] for odd n: 0 if n is prime, otherwise its smallest prime factor
+    private final char smallestFactor[];
+
+    public PrimeFactorizer(int limit) {
+        if (limit < 1 || limit == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + (Integer.MAX_VALUE - 1) + ": " + limit);
+        }
+        this.limit = limit;
+        this.smallestFactor = new char[limit / 2 + 1];
+
+        // only primes up to limit / 3 ever get multiplied by an odd i >= 3
+        int primes[] = new int[16];
+        int primeCount = 0;
+        for (int i = 3; i <= limit; i += 2) {
+            int spf = smallestFactor[i >>> 1] == 0 ? i : smallestFactor[i >>> 1];
+            if (spf == i && i <= limit / 3) {
+                if (primeCount == primes.length) {
+                    primes = Arrays.copyOf(primes, primeCount * 2);
+                }
+                primes[primeCount++] = i;
+            }
+            for (int k = 0; k < primeCount && primes[k] <= spf; k++) {
+                long multiple = (long) i * primes[k];
+                if (multiple > limit) {
+                    break;
+                }
+                smallestFactor[(int) (multiple >>> 1)] = (char) primes[k];
+            }
+        }
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    // the smallest prime factor of 2 <= n <= limit
+    public int smallestPrimeFactor(int n) {
+        if (n < 2 || n > limit) {
+            throw new IllegalArgumentException("n must be between 2 and " + limit + ": " + n);
+        }
+        return (n & 1) == 0 ? 2 : spf(n);
+    }
+
+    // factors every input (>= 1). The distinct primes of inputs[k] and their exponents are written in increasing order
+    // to factors[offsets[k] ... offsets[k + 1]) and exponents[...]; offsets needs inputs.length + 1 entries. Returns the
+    // total number of pairs written. Buffers of MAX_DISTINCT_FACTORS * inputs.length entries are always big enough.
+    public int factorize(int inputs[], int factors[], int exponents[], int offsets[]) {
+        if (offsets.length < inputs.length + 1) {
+            throw new IllegalArgumentException("offsets needs " + (inputs.length + 1) + " entries: " + offsets.length);
+        }
+        int scratch[] = new int[32];
+        int written = 0;
+        for (int k = 0; k < inputs.length; k++) {
+            offsets[k] = written;
+            written += factorize(inputs[k], factors, exponents, written, scratch);
+        }
+        offsets[inputs.length] = written;
+        return written;
+    }
+
+    // factors a single n >= 1 into factors/exponents starting at offset; returns how many distinct primes were written
+    public int factorize(int n, int factors[], int exponents[], int offset) {
+        return factorize(n, factors, exponents, offset, new int[32]);
+    }
+
+    private int factorize(int n, int factors[], int exponents[], int offset, int scratch[]) {
+        if (n < 1) {
+            throw new IllegalArgumentException("only positive numbers can be factored: " + n);
+        }
+        int written = 0;
+        int twos = Integer.numberOfTrailingZeros(n);
+        if (twos > 0) {
+            factors[offset] = 2;
+            exponents[offset] = twos;
+            written = 1;
+            n >>>= twos;
+        }
+        if (n <= limit) {
+            return written + factorFromTable(n, factors, exponents, offset + written);
+        }
+
+        // too big for the table: split it into primes with Pollard's rho, then sort and count them
+        int primes = 0;
+        int pending = 0;
+        scratch[pending++] = n;
+        while (pending > 0) {
+            int m = scratch[--pending];
+            if (m <= limit) {
+                while (m > 1) {
+                    int p = spf(m);
+                    m /= p;
+                    scratch[31 - primes++] = p;
+                }
+            } else if (isPrime(m)) {
+                scratch[31 - primes++] = m;
+            } else {
+                int d = rho(m);
+                scratch[pending++] = d;
+                scratch[pending++] = m / d;
+            }
+        }
+        // the primes sit at the top of scratch; insertion sort them (there are at most 30)
+        int from = 32 - primes;
+        for (int i = from + 1; i < 32; i++) {
+            int p = scratch[i];
+            int j = i - 1;
+            while (j >= from && scratch[j] > p) {
+                scratch[j + 1] = scratch[j];
+                j--;
+            }
+            scratch[j + 1] = p;
+        }
+        for (int i = from; i < 32; i++) {
+            if (written > 0 && factors[offset + written - 1] == scratch[i]) {
+                exponents[offset + written - 1]++;
+            } else {
+                factors[offset + written] = scratch[i];
+                exponents[offset + written] = 1;
+                written++;
+            }
+        }
+        return written;
+    }
+
+    // n is odd and <= limit; the primes come out in increasing order
+    private int factorFromTable(int n, int factors[], int exponents[], int offset) {
+        int written = 0;
+        while (n > 1) {
+            int p = spf(n);
+            int exponent = 0;
+            while (n % p == 0) {
+                n /= p;
+                exponent++;
+            }
+            factors[offset + written] = p;
+            exponents[offset + written] = exponent;
+            written++;
+        }
+        return written;
+    }
+
+    // n is odd and <= limit
+    private int spf(int n) {
+        int spf = smallestFactor[n >>> 1];
+        return spf == 0 ? n : spf;
+    }
+
+    // Miller-Rabin with bases 2, 3, 5 and 7 has no false positives below 3,215,031,751, which covers every int
+    static boolean isPrime(int n) {
+        if (n < 2) {
+            return false;
+        }
+        for (int p : WITNESSES) {
+            if (n % p == 0) {
+                return n == p;
+            }
+        }
+        int d = n - 1;
+        int s = Integer.numberOfTrailingZeros(d);
+        d >>>= s;
+        for (int base : WITNESSES) {
+            long x = powMod(base, d, n);
+            if (x == 1 || x == n - 1) {
+                continue;
+            }
+            boolean composite = true;
+            for (int r = 1; r < s; r++) {
+                x = x * x % n;
+                if (x == n - 1) {
+                    composite = false;
+                    break;
+                }
+            }
+            if (composite) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a non-trivial factor of the odd composite n (Pollard's rho with Floyd cycle finding)
+    static int rho(int n) {
+        for (long c = 1; ; c++) {
+            long x = 2;
+            long y = 2;
+            long d = 1;
+            while (d == 1) {
+                x = (x * x + c) % n;
+                y = (y * y + c) % n;
+                y = (y * y + c) % n;
+                d = gcd(Math.abs(x - y), n);
+            }
+            if (d != n) {
+                return (int) d;
+            }
+        }
+    }
+
+    private static long powMod(long base, long exponent, long modulus) {
+        long result = 1;
+        base %= modulus;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = result * base % modulus;
+            }
+            base = base * base % modulus;
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public static void main(String[] args) {
+        PrimeFactorizer factorizer = new PrimeFactorizer(1_000_000);
+        int inputs[] = new int[] { 1, 12, 360, 999_983, 2_147_483_647, 2_147_483_646, 1_000_000_007, 46_337 * 46_337 };
+        int factors[] = new int[inputs.length * MAX_DISTINCT_FACTORS];
+        int exponents[] = new int[factors.length];
+        int offsets[] = new int[inputs.length + 1];
+        factorizer.factorize(inputs, factors, exponents, offsets);
+        for (int k = 0; k < inputs.length; k++) {
+            StringBuilder line = new StringBuilder(inputs[k] + " =");
+            for (int pair = offsets[k]; pair < offsets[k + 1]; pair++) {
+                line.append(' ').append(factors[pair]).append('^').append(exponents[pair]);
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+A Prime Index on Disk:
+
+Every time a program using the sieve starts, it sieves all over again, even though the primes below a limit are the same
+every time. Instead, we can sieve once, write the wheel sieve's bitset to a file, and have every later run map that file
+straight into memory with FileChannel.map(). Mapping doesn't read anything up front: the operating system pages the bits
+in as they're touched, and the page cache shares them between every process that has the file open.
+
+The bitset answers isPrime(n) directly. To count primes quickly we also store a rank directory: for every block of
+BLOCK_WORDS words, the number of primes before that block. Then:
+
+pi(n) (how many primes are <= n) = the directory entry for n's block
+                                  + the bits set in the words of that block before n's word
+                                  + the bits set in n's word up to n
+nthPrime(k) = binary search the directory for the block holding the k-th prime, then walk its words
+nextPrime(n) = scan forward from n's bit, one 64-bit word at a time
+
+The file is laid out as a fixed header, then the bitset words, then the directory, all little-endian longs.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+public class PrimeIndex {
+
+    static final long MAGIC = 0x5052494D45494458L; // "PRIMEIDX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    // 8 words is 512 bits, so one directory entry per 64 bytes of bitset (12.5% extra space)
+    static final int BLOCK_WORDS = 8;
+
+    // open() maps the bitset as a single buffer, which can't be bigger than Integer.MAX_VALUE bytes (a limit of about
+    // 6.4 * 10^10)
+    static final long MAX_WORDS = Integer.MAX_VALUE / 8;
+
+    private final long limit;
+    private final long wordCount;
+    private final LongBuffer words;
+    private final LongBuffer ranks;
+
+    private PrimeIndex(long limit, long wordCount, LongBuffer words, LongBuffer ranks) {
+        this.limit = limit;
+        this.wordCount = wordCount;
+        this.words = words;
+        this.ranks = ranks;
+    }
+
+    // sieves up to limit and writes the index to file
+    public static void build(long limit, Path file) throws IOException {
+        if (limit >= 0 && (WheelSieve.countWheelNumbers(limit) + 63) / 64 > MAX_WORDS) {
+            throw new IllegalArgumentException("limit is too large for an index that open() can map: " + limit);
+        }
+        WheelSieve sieve = new WheelSieve(limit);
+        long sieveWords[] = sieve.words();
+        long blocks = (sieveWords.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putInt(VERSION).putInt(BLOCK_WORDS)
+                    .putLong(limit).putLong(sieve.bits()).putLong(sieveWords.length).putLong(blocks);
+            buffer.position(HEADER_BYTES);
+
+            for (long word : sieveWords) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(word);
+            }
+            long rank = 0;
+            for (int block = 0; block <= blocks; block++) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(rank);
+                for (int word = block * BLOCK_WORDS; word < Math.min(sieveWords.length, (block + 1) * BLOCK_WORDS); word++) {
+                    rank += Long.bitCount(sieveWords[word]);
+                }
+            }
+            drain(buffer, channel);
+        }
+    }
+
+    // maps an index written by build(); nothing is sieved or read up front
+    public static PrimeIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a prime index: " + file);
+            }
+            int blockWords = header.getInt();
+            long limit = header.getLong();
+            header.getLong(); // the number of bits, implied by limit
+            long wordCount = header.getLong();
+            long blocks = header.getLong();
+            if (blockWords != BLOCK_WORDS || wordCount > MAX_WORDS
+                    || HEADER_BYTES + (wordCount + blocks + 1) * 8 > channel.size()) {
+                throw new IOException("corrupt or unsupported prime index: " + file);
+            }
+            // a mapping stays valid after its channel is closed
+            LongBuffer words = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, wordCount * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            LongBuffer ranks = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + wordCount * 8, (blocks + 1) * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            return new PrimeIndex(limit, wordCount, words, ranks);
+        }
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    // O(1)
+    public boolean isPrime(long n) {
+        checkInRange(n);
+        if (n < 7) {
+            return n == 2 || n == 3 || n == 5;
+        }
+        int position = WheelSieve.WHEEL_INDEX[(int) (n % 30)];
+        if (position < 0) {
+            return false;
+        }
+        long bit = (n / 30) * 8 + position;
+        return (words.get((int) (bit >>> 6)) & (1L << bit)) != 0;
+    }
+
+    // how many primes are <= n, in O(1)
+    public long pi(long n) {
+        checkInRange(n);
+        long small = n >= 5 ? 3 : n >= 3 ? 2 : n >= 2 ? 1 : 0;
+        return small + rank(WheelSieve.countWheelNumbers(n));
+    }
+
+    // the k-th prime, counting from nthPrime(1) == 2, in O(log n)
+    public long nthPrime(long k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        if (k > pi(limit)) {
+            throw new NoSuchElementException("the index only holds " + pi(limit) + " primes");
+        }
+        if (k <= 3) {
+            return k == 1 ? 2 : k == 2 ? 3 : 5;
+        }
+        long target = k - 3;
+        int blocks = ranks.limit() - 1;
+        // the last block that starts with fewer than target primes before it
+        int lo = 0;
+        int hi = blocks - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (ranks.get(mid) < target) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        long seen = ranks.get(lo);
+        for (int word = lo * BLOCK_WORDS; ; word++) {
+            long value = words.get(word);
+            int count = Long.bitCount(value);
+            if (seen + count >= target) {
+                for (long skip = target - seen - 1; skip > 0; skip--) {
+                    value &= value - 1;
+                }
+                return WheelSieve.valueOf((long) word * 64 + Long.numberOfTrailingZeros(value));
+            }
+            seen += count;
+        }
+    }
+
+    // the smallest prime > n, scanning a word at a time
+    public long nextPrime(long n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative: " + n);
+        }
+        for (long small = n + 1; small <= Math.min(5, limit); small++) {
+            if (small == 2 || small == 3 || small == 5) {
+                return small;
+            }
+        }
+        if (n < limit) {
+            // the bits for numbers <= n come first, so the next bit is the first number > n
+            long bit = WheelSieve.countWheelNumbers(Math.max(n, 5));
+            for (long word = bit >>> 6; word < wordCount; word++) {
+                long value = words.get((int) word);
+                if (word == bit >>> 6) {
+                    value &= -1L << bit;
+                }
+                if (value != 0) {
+                    return WheelSieve.valueOf(word * 64 + Long.numberOfTrailingZeros(value));
+                }
+            }
+        }
+        throw new NoSuchElementException("no prime above " + n + " up to " + limit);
+    }
+
+    // the number of set bits before bit
+    private long rank(long bit) {
+        int word = (int) (bit >>> 6);
+        int block = word / BLOCK_WORDS;
+        long rank = ranks.get(block);
+        for (int before = block * BLOCK_WORDS; before < word; before++) {
+            rank += Long.bitCount(words.get(before));
+        }
+        if ((bit & 63) != 0) {
+            rank += Long.bitCount(words.get(word) & (-1L >>> (64 - (bit & 63))));
+        }
+        return rank;
+    }
+
+    private void checkInRange(long n) {
+        if (n < 0 || n > limit) {
+            throw new IllegalArgumentException("n must be between 0 and " + limit + ": " + n);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : "primes.idx");
+        long start = System.nanoTime();
+        build(1_000_000_000L, file);
+        System.out.println("built in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        start = System.nanoTime();
+        PrimeIndex index = open(file);
+        System.out.println("opened in " + (System.nanoTime() - start) / 1_000 + " us");
+        System.out.println("isPrime(999999937) = " + index.isPrime(999_999_937L));
+        System.out.println("pi(10^9) = " + index.pi(1_000_000_000L));
+        System.out.println("nthPrime(50847534) = " + index.nthPrime(50_847_534L));
+        System.out.println("nextPrime(10^6) = " + index.nextPrime(1_000_000L));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+Primitive Result Sinks:
+
+The tutorial collects its primes into an ArrayList of Integer. Every prime becomes its own little object (about 16 bytes,
+plus a 4-8 byte reference in the list), and then toArray() copies the whole thing again just to print it. For 50 million
+primes that's hundreds of megabytes of garbage for the garbage collector to clean up.
+
+Java already has interfaces for "something that accepts ints" and "something that accepts longs": IntConsumer and
+LongConsumer. Anything that produces results can hand them to one of those, one at a time, and the caller decides where
+they go:
+
+IntList / LongList: a growable int[] / long[] that doubles when it's full, the way ArrayList does, but without boxing.
+ChannelWriter: packs the numbers into a direct ByteBuffer and writes it to a file or socket channel whenever it fills up,
+so the results never have to exist in memory all at once.
+Or any lambda, if the caller just wants to count or sum them.
+*/
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+public class PrimitiveSinks {
+
+    private PrimitiveSinks() {
+    }
+
+    // a growable int[]
+    public static final class IntList implements IntConsumer {
+        private int values[];
+        private int size;
+
+        public IntList() {
+            this(16);
+        }
+
+        public IntList(int initialCapacity) {
+            values = new int[Math.max(1, initialCapacity)];
+        }
+
+        @Override
+        public void accept(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public int get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        // a copy trimmed to size
+        public int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    // a growable long[]
+    public static final class LongList implements LongConsumer {
+        private long values[];
+        private int size;
+
+        public LongList() {
+            this(16);
+        }
+
+        public LongList(int initialCapacity) {
+            values = new long[Math.max(1, initialCapacity)];
+        }
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public long get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+            }
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    // writes ints (4 bytes) or longs (8 bytes) to a channel through a reusable direct buffer
+    public static final class ChannelWriter implements IntConsumer, LongConsumer, Flushable, AutoCloseable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        private long written;
+
+        public ChannelWriter(WritableByteChannel channel) {
+            this(channel, 1 << 16, ByteOrder.LITTLE_ENDIAN);
+        }
+
+        public ChannelWriter(WritableByteChannel channel, int bufferBytes, ByteOrder order) {
+            if (bufferBytes < 8) {
+                throw new IllegalArgumentException("bufferBytes must be at least 8: " + bufferBytes);
+            }
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).order(order);
+        }
+
+        @Override
+        public void accept(int value) {
+            if (buffer.remaining() < Integer.BYTES) {
+                drain();
+            }
+            buffer.putInt(value);
+            written++;
+        }
+
+        @Override
+        public void accept(long value) {
+            if (buffer.remaining() < Long.BYTES) {
+                drain();
+            }
+            buffer.putLong(value);
+            written++;
+        }
+
+        // how many values have been accepted so far
+        public long count() {
+            return written;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // flushes whatever is buffered and closes the channel
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void drain() {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
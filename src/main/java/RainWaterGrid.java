@@ -0,0 +1,297 @@
+/*
+Capturing Rainwater on a Grid:
+
+On a 2-D elevation grid, water can run off in four directions instead of two, so "the highest bar on each side" no longer
+works. What still works is the idea behind the two pointers: water can only escape over the edge of the grid, and the
+lowest point of the wall around a pool decides how high it gets. So we flood the grid from its edge inwards, always
+continuing from the lowest point of the wall (a "priority flood"):
+
+put every cell on the edge of the grid in a min-heap, keyed by its height, and mark it visited
+while the heap isn't empty:
+    take the lowest cell; its key is the water level there
+    for each unvisited neighbor: mark it visited
+        if it's lower than that level, it fills with water up to the level (and keeps that level)
+        otherwise its own height is its level
+        put it in the heap with its level
+
+A grid of 20,000 x 20,000 cells is 400 million of them, so the usual PriorityQueue<int[]> (an array object plus a queue
+entry per cell) is out of the question. Here the heights are one row-major int[] (cell (row, col) is
+heights[row * cols + col]), the visited flags are a bitset in a long[], and the heap is a plain long[] whose entries pack
+(level << 32) | cell, so comparing two longs compares their levels.
+
+Memory: the heights take 4 bytes per cell (the caller's array) and the visited bitset 1 bit per cell. Every cell goes
+through the heap exactly once, but the heap only holds the current shoreline of the flood, which is usually around the
+perimeter of the grid. On a winding terrain (a serpentine of walls, say) the shoreline can reach a good fraction of the
+grid, and then the heap is a single long[] of up to 8 bytes per cell: 3.2 GB for 20,000 x 20,000 cells, doubling as it
+grows.
+
+trapWaterTiled() runs exactly the same flood, but splits the heap by tile. Each tile of tileSize x tileSize cells has a
+heap of its own (created when the flood first reaches the tile and dropped again once it's empty), and a small heap of
+tiles, keyed by the lowest level in each one, says which tile to continue from. The flood keeps popping the tile it's in
+for as long as its lowest level is no higher than the lowest level anywhere else, so cells still come out in order of
+level and each one is still visited once. No allocation is bigger than one tile, however large the shoreline gets.
+*/
+
+import java.util.Arrays;
+
+public class RainWaterGrid {
+
+    static final int DEFAULT_TILE_SIZE = 1024;
+
+    private RainWaterGrid() {
+    }
+
+    // the water held by a rows x cols grid of heights stored row by row
+    public static long trapWater(int heights[], int rows, int cols) {
+        checkGrid(heights, rows, cols);
+        if (rows < 3 || cols < 3) {
+            return 0;
+        }
+        long visited[] = new long[(heights.length + 63) >>> 6];
+        LongHeap heap = new LongHeap(2 * (rows + cols));
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (row == 0 || col == 0 || row == rows - 1 || col == cols - 1) {
+                    int cell = row * cols + col;
+                    visited[cell >>> 6] |= 1L << cell;
+                    heap.push(pack(heights[cell], cell));
+                }
+            }
+        }
+
+        long water = 0;
+        while (!heap.isEmpty()) {
+            long top = heap.pop();
+            int level = (int) (top >> 32);
+            int cell = (int) top;
+            int row = cell / cols;
+            int col = cell - row * cols;
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbor = neighbor(cell, row, col, direction, rows, cols);
+                if (neighbor < 0 || (visited[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                    continue;
+                }
+                visited[neighbor >>> 6] |= 1L << neighbor;
+                int height = heights[neighbor];
+                if (height < level) {
+                    water += (long) level - height;
+                    heap.push(pack(level, neighbor));
+                } else {
+                    heap.push(pack(height, neighbor));
+                }
+            }
+        }
+        return water;
+    }
+
+    public static long trapWaterTiled(int heights[], int rows, int cols) {
+        return trapWaterTiled(heights, rows, cols, DEFAULT_TILE_SIZE);
+    }
+
+    // the same answer as trapWater(), with no heap allocation bigger than one tileSize x tileSize tile
+    public static long trapWaterTiled(int heights[], int rows, int cols, int tileSize) {
+        checkGrid(heights, rows, cols);
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize must be positive: " + tileSize);
+        }
+        if (rows < 3 || cols < 3) {
+            return 0;
+        }
+        TiledFrontier frontier = new TiledFrontier(rows, cols, tileSize);
+        long visited[] = new long[(heights.length + 63) >>> 6];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (row == 0 || col == 0 || row == rows - 1 || col == cols - 1) {
+                    int cell = row * cols + col;
+                    visited[cell >>> 6] |= 1L << cell;
+                    frontier.push(heights[cell], cell, row, col);
+                }
+            }
+        }
+
+        long water = 0;
+        for (int tile = frontier.nextTile(); tile >= 0; tile = frontier.nextTile()) {
+            LongHeap heap = frontier.heaps[tile];
+            // stay in this tile while nothing lower is waiting anywhere else
+            while (!heap.isEmpty() && heap.peek() >> 32 <= frontier.lowestElsewhere()) {
+                long top = heap.pop();
+                int level = (int) (top >> 32);
+                int cell = (int) top;
+                int row = cell / cols;
+                int col = cell - row * cols;
+                for (int direction = 0; direction < 4; direction++) {
+                    int neighbor = neighbor(cell, row, col, direction, rows, cols);
+                    if (neighbor < 0 || (visited[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                        continue;
+                    }
+                    visited[neighbor >>> 6] |= 1L << neighbor;
+                    int height = heights[neighbor];
+                    int neighborRow = neighbor / cols;
+                    int neighborCol = neighbor - neighborRow * cols;
+                    if (height < level) {
+                        water += (long) level - height;
+                        frontier.push(level, neighbor, neighborRow, neighborCol);
+                    } else {
+                        frontier.push(height, neighbor, neighborRow, neighborCol);
+                    }
+                }
+            }
+            frontier.done(tile);
+        }
+        return water;
+    }
+
+    /*
+    The flood's heap, split by tile: heaps[tile] holds the waiting cells of one tile, and tiles holds (lowest level << 32)
+    | tile for every tile with cells waiting. An entry in tiles is pushed whenever a tile's lowest level drops, so it can
+    go stale when the tile's level changes later; stale entries are skipped when they come off.
+    */
+    private static final class TiledFrontier {
+        final LongHeap heaps[];
+        private final LongHeap tiles = new LongHeap(64);
+        private final int tileSize;
+        private final int tileCols;
+        // the tile being flooded, which goes back in line in done() rather than on every push
+        private int flooding = -1;
+
+        TiledFrontier(int rows, int cols, int tileSize) {
+            this.tileSize = tileSize;
+            this.tileCols = (cols + tileSize - 1) / tileSize;
+            this.heaps = new LongHeap[(rows + tileSize - 1) / tileSize * tileCols];
+        }
+
+        void push(int level, int cell, int row, int col) {
+            int tile = row / tileSize * tileCols + col / tileSize;
+            LongHeap heap = heaps[tile];
+            if (heap == null) {
+                // room for the tile's perimeter to start with
+                heap = heaps[tile] = new LongHeap((int) Math.min(4L * tileSize, (long) tileSize * tileSize));
+            }
+            if (tile != flooding && (heap.isEmpty() || level < heap.peek() >> 32)) {
+                tiles.push(pack(level, tile));
+            }
+            heap.push(pack(level, cell));
+        }
+
+        // the tile holding the lowest waiting cell, or -1 once the flood is over
+        int nextTile() {
+            while (!tiles.isEmpty()) {
+                long top = tiles.pop();
+                int tile = (int) top;
+                LongHeap heap = heaps[tile];
+                if (heap != null && !heap.isEmpty() && heap.peek() >> 32 == top >> 32) {
+                    flooding = tile;
+                    return tile;
+                }
+            }
+            return -1;
+        }
+
+        // a lower bound on the lowest level waiting outside the tile being flooded
+        long lowestElsewhere() {
+            return tiles.isEmpty() ? Long.MAX_VALUE : tiles.peek() >> 32;
+        }
+
+        // the tile goes back in line behind its new lowest level, or lets go of its heap once it's empty
+        void done(int tile) {
+            flooding = -1;
+            LongHeap heap = heaps[tile];
+            if (heap.isEmpty()) {
+                heaps[tile] = null;
+            } else {
+                tiles.push(pack((int) (heap.peek() >> 32), tile));
+            }
+        }
+    }
+
+    // the cell next to (row, col) in one of four directions, or -1 past the edge of the grid
+    private static int neighbor(int cell, int row, int col, int direction, int rows, int cols) {
+        switch (direction) {
+            case 0:
+                return row > 0 ? cell - cols : -1;
+            case 1:
+                return row < rows - 1 ? cell + cols : -1;
+            case 2:
+                return col > 0 ? cell - 1 : -1;
+            default:
+                return col < cols - 1 ? cell + 1 : -1;
+        }
+    }
+
+    private static long pack(int level, int cell) {
+        return (long) level << 32 | cell;
+    }
+
+    private static void checkGrid(int heights[], int rows, int cols) {
+        if (rows < 0 || cols < 0 || (long) rows * cols != heights.length) {
+            throw new IllegalArgumentException("a " + rows + " x " + cols + " grid needs " + (long) rows * cols
+                    + " heights, not " + heights.length);
+        }
+    }
+
+    // a binary min-heap of longs in a growable long[]
+    private static final class LongHeap {
+        private long entries[];
+        private int size;
+
+        LongHeap(int initialCapacity) {
+            entries = new long[Math.max(16, initialCapacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peek() {
+            return entries[0];
+        }
+
+        void push(long entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            int child = size++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (entries[parent] <= entry) {
+                    break;
+                }
+                entries[child] = entries[parent];
+                child = parent;
+            }
+            entries[child] = entry;
+        }
+
+        long pop() {
+            long top = entries[0];
+            long last = entries[--size];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && entries[child + 1] < entries[child]) {
+                    child++;
+                }
+                if (last <= entries[child]) {
+                    break;
+                }
+                entries[parent] = entries[child];
+                parent = child;
+            }
+            entries[parent] = last;
+            return top;
+        }
+    }
+
+    public static void main(String[] args) {
+        int heights[] = new int[] {
+            1, 4, 3, 1, 3, 2,
+            3, 2, 1, 3, 2, 4,
+            2, 3, 3, 2, 3, 1,
+        };
+        System.out.println("Amount of water captured: " + trapWater(heights, 3, 6));
+        System.out.println("Tiled, 2 x 2 tiles: " + trapWaterTiled(heights, 3, 6, 2));
+    }
+}
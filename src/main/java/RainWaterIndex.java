@@ -0,0 +1,213 @@
+/*
+A Rainwater Index for Changing Heights:
+
+When bars keep changing height, running efficientSolution() again after every change costs O(n) each time. A segment
+tree can answer "how much water does heights[lo ... hi) hold?" in O(log^2 n) and absorb a change in O(log^2 n).
+
+Start from the same formula as the parallel version: the water above bar i is min(highest bar to its left, highest bar
+to its right) - heights[i]. If k is a tallest bar in the range, bars up to k are bounded by the highest bar on their left
+and bars after k by the highest bar on their right, so
+
+water = (sum of running maximums from the left over [lo, k])
+      + (sum of running maximums from the right over (k, hi))
+      - (sum of heights over [lo, hi))
+
+Every node of the tree covers a power-of-two stretch of bars and stores its tallest bar and its sum, as usual, plus two
+numbers for its halves:
+
+rightPrefix = the sum of running maximums over the right half, when they start out at the left half's tallest bar
+leftSuffix  = the sum of running maximums (from the right) over the left half, starting at the right half's tallest bar
+
+With those, "the sum of running maximums over this node, starting from some bound" only needs ONE path down the tree
+(prefixFrom()):
+
+if bound >= the node's tallest bar: every running maximum is just the bound
+if bound >= the left half's tallest bar: the left half is all bound, then go down the right half
+otherwise: go down the left half, and the right half is exactly rightPrefix
+
+A range query splits [lo, hi) into O(log n) whole nodes and runs that walk on each, carrying the bound along. Changing a
+height fixes up its O(log n) ancestors, each with one O(log n) walk.
+*/
+
+import java.util.Arrays;
+
+public class RainWaterIndex {
+
+    private final int n;
+    // leaves at [size, size + n); bars past n are padding that no query ever reaches
+    private final int size;
+    private final int max[];
+    private final long sum[];
+    private final long rightPrefix[];
+    private final long leftSuffix[];
+
+    public RainWaterIndex(int heights[]) {
+        this.n = heights.length;
+        this.size = Integer.highestOneBit(Math.max(1, n) * 2 - 1);
+        this.max = new int[2 * size];
+        this.sum = new long[2 * size];
+        this.rightPrefix = new long[size];
+        this.leftSuffix = new long[size];
+        Arrays.fill(max, size, 2 * size, Integer.MIN_VALUE);
+        for (int i = 0; i < n; i++) {
+            max[size + i] = heights[i];
+            sum[size + i] = heights[i];
+        }
+        for (int node = size - 1; node >= 1; node--) {
+            pull(node);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int height(int i) {
+        checkIndex(i);
+        return max[size + i];
+    }
+
+    // O(log^2 n)
+    public void updateHeight(int i, int height) {
+        checkIndex(i);
+        int node = size + i;
+        max[node] = height;
+        sum[node] = height;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            pull(node);
+        }
+    }
+
+    // the water held by heights[lo ... hi) on their own, in O(log^2 n)
+    public long waterIn(int lo, int hi) {
+        if (lo < 0 || hi > n || lo > hi) {
+            throw new IllegalArgumentException("need 0 <= lo <= hi <= " + n + ": " + lo + ", " + hi);
+        }
+        if (hi - lo < 3) {
+            return 0;
+        }
+        int nodes[] = new int[128];
+        int count = cover(lo, hi, nodes);
+
+        // the first tallest bar: the first tallest node, then down to its first tallest leaf
+        int tallest = nodes[0];
+        long heights = 0;
+        for (int k = 0; k < count; k++) {
+            heights += sum[nodes[k]];
+            if (max[nodes[k]] > max[tallest]) {
+                tallest = nodes[k];
+            }
+        }
+        while (tallest < size) {
+            tallest = max[2 * tallest] == max[tallest] ? 2 * tallest : 2 * tallest + 1;
+        }
+        int k = tallest - size;
+
+        long water = -heights;
+        int bound = Integer.MIN_VALUE;
+        count = cover(lo, k + 1, nodes);
+        for (int j = 0; j < count; j++) {
+            water += prefixFrom(nodes[j], bound);
+            bound = Math.max(bound, max[nodes[j]]);
+        }
+        bound = Integer.MIN_VALUE;
+        count = cover(k + 1, hi, nodes);
+        for (int j = count - 1; j >= 0; j--) {
+            water += suffixFrom(nodes[j], bound);
+            bound = Math.max(bound, max[nodes[j]]);
+        }
+        return water;
+    }
+
+    public long totalWater() {
+        return waterIn(0, n);
+    }
+
+    private void pull(int node) {
+        int left = 2 * node;
+        int right = left + 1;
+        max[node] = Math.max(max[left], max[right]);
+        sum[node] = sum[left] + sum[right];
+        rightPrefix[node] = prefixFrom(right, max[left]);
+        leftSuffix[node] = suffixFrom(left, max[right]);
+    }
+
+    // the sum of running maximums over node's bars, left to right, starting from bound
+    private long prefixFrom(int node, int bound) {
+        long total = 0;
+        long length = size / Integer.highestOneBit(node);
+        while (true) {
+            if (bound >= max[node]) {
+                return total + bound * length;
+            }
+            if (node >= size) {
+                return total + max[node];
+            }
+            length >>>= 1;
+            if (bound >= max[2 * node]) {
+                total += bound * length;
+                node = 2 * node + 1;
+            } else {
+                total += rightPrefix[node];
+                node = 2 * node;
+            }
+        }
+    }
+
+    // the sum of running maximums over node's bars, right to left, starting from bound
+    private long suffixFrom(int node, int bound) {
+        long total = 0;
+        long length = size / Integer.highestOneBit(node);
+        while (true) {
+            if (bound >= max[node]) {
+                return total + bound * length;
+            }
+            if (node >= size) {
+                return total + max[node];
+            }
+            length >>>= 1;
+            if (bound >= max[2 * node + 1]) {
+                total += bound * length;
+                node = 2 * node;
+            } else {
+                total += leftSuffix[node];
+                node = 2 * node + 1;
+            }
+        }
+    }
+
+    // the whole nodes that make up [lo, hi), in order from left to right; returns how many
+    private int cover(int lo, int hi, int nodes[]) {
+        int leftCount = 0;
+        int rightCount = 0;
+        int rightNodes[] = new int[64];
+        for (int l = lo + size, r = hi + size; l < r; l >>>= 1, r >>>= 1) {
+            if ((l & 1) != 0) {
+                nodes[leftCount++] = l++;
+            }
+            if ((r & 1) != 0) {
+                rightNodes[rightCount++] = --r;
+            }
+        }
+        while (rightCount > 0) {
+            nodes[leftCount++] = rightNodes[--rightCount];
+        }
+        return leftCount;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= n) {
+            throw new IndexOutOfBoundsException("index " + i + " out of bounds for size " + n);
+        }
+    }
+
+    public static void main(String[] args) {
+        // heights: array representation of the histogram
+        int heights[] = new int[] { 4, 2, 1, 3, 0, 1, 2 };
+        RainWaterIndex index = new RainWaterIndex(heights);
+        System.out.println("Amount of water captured: " + index.totalWater());
+        index.updateHeight(6, 4);
+        System.out.println("After raising the last bar to 4: " + index.totalWater());
+        System.out.println("Between bars 1 and 5: " + index.waterIn(1, 6));
+    }
+}
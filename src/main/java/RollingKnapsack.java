@@ -0,0 +1,200 @@
+/*
+Space-Optimized Knapsack:
+
+The dynamic programming version of knapSack() allocates a matrix with a row for every item and weightCap + 1 columns. With
+50,000 items and a capacity in the millions that matrix needs tens of gigabytes, and the JVM gives up long before the
+bottom right element is filled in.
+
+Look closely at how the matrix is filled, though: every element in row index only ever reads from row index - 1. So we
+never need more than one row at a time! If we walk the weights from weightCap DOWN to the weight of the item, the element
+we read (row[weight - itemWeight]) hasn't been overwritten for the current item yet, so a single array can be updated in
+place:
+
+for every item:
+    for every weight from weightCap down to the item's weight:
+        row[weight] = max(row[weight], value of item + row[weight - weight of item])
+
+That gives us the best value in O(weightCap) memory. The values are accumulated in a long so large totals can't overflow.
+Every solve is reported to SolverInstrumentation: its size, the cells filled in, the bytes allocated and the time taken.
+*/
+
+/*
+Getting the Items Back:
+
+Throwing the matrix away has a cost: the usual way to find out which items were chosen is to walk back up the matrix from
+the bottom right element. Instead we use a divide and conquer trick (the same one Hirschberg used for sequence alignment):
+
+Split the items into a first half and a second half.
+Fill one row with the first half of the items (forward) and another row with the second half (backward).
+For every way of splitting the capacity (c for the first half and weightCap - c for the second half), forward[c] +
+backward[weightCap - c] is the best value with that split. Pick the split with the highest total.
+Solve each half again with its share of the capacity, until a half only holds a single item.
+
+The two rows are reused at every level of the recursion, so reconstructing the items needs O(n + weightCap) memory
+instead of O(n * weightCap).
+*/
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+public class RollingKnapsack {
+
+    // best value for the items, keeping only a single row of the matrix
+    static long knapSack(int weightCap, int weights[], int values[]) {
+        checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        long best = bestValue(weightCap, weights, values);
+        instrumented.addCells(cellsFilled(weightCap, weights));
+        instrumented.finish("rolling", weights.length, weightCap);
+        return best;
+    }
+
+    // best value for the items AND the items that make it up, in O(n + weightCap) memory
+    static KnapsackSolution solve(int weightCap, int weights[], int values[]) {
+        checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        boolean chosen[] = new boolean[weights.length];
+        instrumented.addCells(chooseItems(weightCap, weights, values, chosen));
+        KnapsackSolution solution = toSolution(chosen, values);
+        instrumented.finish("rolling-items", weights.length, weightCap);
+        return solution;
+    }
+
+    // knapSack() without the input checks or the instrumentation, for the solvers that delegate to it
+    static long bestValue(int weightCap, int weights[], int values[]) {
+        return bestValue(weightCap, IntBuffer.wrap(weights), IntBuffer.wrap(values));
+    }
+
+    // ... with the items read from index 0 up to the limit of two buffers, such as views of a mapped file, without
+    // copying them into arrays first
+    static long bestValue(int weightCap, IntBuffer weights, IntBuffer values) {
+        long row[] = new long[weightCap + 1];
+        for (int item = 0; item < weights.limit(); item++) {
+            applyItem(row, weightCap, weights.get(item), values.get(item));
+        }
+        return row[weightCap];
+    }
+
+    // solve() without the input checks or the instrumentation: marks the best items in chosen and returns how many cells
+    // were filled in
+    static long chooseItems(int weightCap, int weights[], int values[], boolean chosen[]) {
+        if (weights.length == 0) {
+            return 0;
+        }
+        long forward[] = new long[weightCap + 1];
+        long backward[] = new long[weightCap + 1];
+        return chooseItems(0, weights.length, weightCap, weights, values, forward, backward, chosen);
+    }
+
+    // row[weight] = max(row[weight], value + row[weight - itemWeight]), walking the weights down so row can be updated in place
+    static void applyItem(long row[], int weightCap, int itemWeight, int value) {
+        for (int weight = weightCap; weight >= itemWeight; weight--) {
+            long with = value + row[weight - itemWeight];
+            if (with > row[weight]) {
+                row[weight] = with;
+            }
+        }
+    }
+
+    // how many cells of a row applyItem() fills in
+    static long cellsFilled(long weightCap, int itemWeight) {
+        return Math.max(0, weightCap - itemWeight + 1);
+    }
+
+    // ... and how many it fills in for all of the items
+    static long cellsFilled(long weightCap, int weights[]) {
+        return cellsFilled(weightCap, IntBuffer.wrap(weights));
+    }
+
+    static long cellsFilled(long weightCap, IntBuffer weights) {
+        long cells = 0;
+        for (int item = 0; item < weights.limit(); item++) {
+            cells += cellsFilled(weightCap, weights.get(item));
+        }
+        return cells;
+    }
+
+    static void checkInputs(long weightCap, int weights[], int values[]) {
+        checkInputs(weightCap, IntBuffer.wrap(weights), IntBuffer.wrap(values));
+    }
+
+    static void checkInputs(long weightCap, IntBuffer weights, IntBuffer values) {
+        if (weightCap < 0) {
+            throw new IllegalArgumentException("weightCap must not be negative: " + weightCap);
+        }
+        if (weights.limit() != values.limit()) {
+            throw new IllegalArgumentException(
+                    "weights and values must have the same length: " + weights.limit() + " != " + values.limit());
+        }
+        for (int item = 0; item < weights.limit(); item++) {
+            if (weights.get(item) < 0 || values.get(item) < 0) {
+                throw new IllegalArgumentException("item " + item + " has a negative weight or value");
+            }
+        }
+    }
+
+    static KnapsackSolution toSolution(boolean chosen[], int values[]) {
+        int count = 0;
+        for (boolean isChosen : chosen) {
+            if (isChosen) {
+                count++;
+            }
+        }
+        int items[] = new int[count];
+        long total = 0;
+        int next = 0;
+        for (int item = 0; item < chosen.length; item++) {
+            if (chosen[item]) {
+                items[next++] = item;
+                total += values[item];
+            }
+        }
+        return new KnapsackSolution(total, items);
+    }
+
+    // marks the best subset of items [lo, hi) that fits in weightCap; forward and backward are scratch rows. Returns how
+    // many cells were filled in.
+    private static long chooseItems(int lo, int hi, int weightCap, int weights[], int values[],
+                                    long forward[], long backward[], boolean chosen[]) {
+        if (hi - lo == 1) {
+            chosen[lo] = weights[lo] <= weightCap && values[lo] > 0;
+            return 0;
+        }
+        int mid = (lo + hi) >>> 1;
+
+        long cells = 0;
+        Arrays.fill(forward, 0, weightCap + 1, 0L);
+        for (int item = lo; item < mid; item++) {
+            applyItem(forward, weightCap, weights[item], values[item]);
+            cells += cellsFilled(weightCap, weights[item]);
+        }
+        Arrays.fill(backward, 0, weightCap + 1, 0L);
+        for (int item = mid; item < hi; item++) {
+            applyItem(backward, weightCap, weights[item], values[item]);
+            cells += cellsFilled(weightCap, weights[item]);
+        }
+
+        // find the capacity split where both halves together are worth the most
+        int split = 0;
+        long best = -1;
+        for (int c = 0; c <= weightCap; c++) {
+            long total = forward[c] + backward[weightCap - c];
+            if (total > best) {
+                best = total;
+                split = c;
+            }
+        }
+
+        // the rows aren't needed anymore, so both halves can reuse them
+        cells += chooseItems(lo, mid, split, weights, values, forward, backward, chosen);
+        return cells + chooseItems(mid, hi, weightCap - split, weights, values, forward, backward, chosen);
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        int weightCap = 50;
+        System.out.println(knapSack(weightCap, weights, values));
+        System.out.println(solve(weightCap, weights, values));
+    }
+}
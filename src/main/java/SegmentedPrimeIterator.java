@@ -0,0 +1,253 @@
+/*
+Segmented Prime Streams:
+
+Every sieve so far builds the whole array up to the limit before we see a single prime, and then collects the primes into
+a list that's as big as the answer. Memory grows with the limit, and nobody downstream can start working until the very
+end.
+
+The way around that is the segmented sieve. To find the primes in some window [lo, hi) we only need to cross out the
+multiples of the primes up to the square root of hi (any composite number below hi has a factor that small). So:
+
+find the base primes up to sqrt(hi) (with the wheel sieve)
+for every window of the range, small enough to stay in the CPU cache:
+    mark every odd number in the window as prime
+    for every base prime p:
+        cross out the odd multiples of p in the window, starting at max(p * p, the first multiple inside the window)
+    hand out the numbers that are still marked, one at a time
+
+Only one window is in memory at a time, so memory stays at one window plus the base primes, no matter how wide the range
+is. And because the windows are sieved one by one as the caller asks for more primes, the first prime shows up as soon as
+the first window is done, not after the whole range.
+
+The base primes are only needed up to the square root of the window we're currently sieving, so they grow as the windows
+move up the range instead of being computed for all of [lo, hi) before the first window.
+
+Each window only stores the odd numbers, one bit each: bit j of a window starting at the odd number first is first + 2j.
+Every window's sieving time goes to SolverInstrumentation (as a metric and a JFR event) when someone is listening.
+*/
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public class SegmentedPrimeIterator implements PrimitiveIterator.OfLong {
+
+    // 2^18 bits is 32KB, which fits in a typical L1 data cache, and covers 2^19 numbers
+    static final int DEFAULT_SEGMENT_BITS = 1 << 18;
+
+    private final long hi;
+    private final int segmentBits;
+    private final long segment[];
+
+    private WheelSieve basePrimes;
+    private long segmentStart;
+    private long segmentFirstOdd;
+    private int segmentCount;
+    private int word = -1;
+    private long remaining;
+    private boolean pendingTwo;
+
+    // the primes p with lo <= p < hi, in increasing order
+    public SegmentedPrimeIterator(long lo, long hi) {
+        this(lo, hi, DEFAULT_SEGMENT_BITS);
+    }
+
+    public SegmentedPrimeIterator(long lo, long hi, int segmentBits) {
+        if (lo < 0 || hi < lo) {
+            throw new IllegalArgumentException("need 0 <= lo <= hi: " + lo + ", " + hi);
+        }
+        if (segmentBits < 64 || segmentBits % 64 != 0) {
+            throw new IllegalArgumentException("segmentBits must be a positive multiple of 64: " + segmentBits);
+        }
+        this.hi = hi;
+        this.segmentBits = segmentBits;
+        this.segment = new long[segmentBits / 64];
+        this.pendingTwo = lo <= 2 && 2 < hi;
+        this.segmentStart = lo;
+    }
+
+    // the primes p with lo <= p < hi as a lazy, ordered stream
+    public static LongStream primes(long lo, long hi) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(new SegmentedPrimeIterator(lo, hi),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    // how many primes p there are with lo <= p < hi, counting each window's marks with Long.bitCount() instead of handing
+    // them out one at a time
+    public static long count(long lo, long hi) {
+        return new SegmentedPrimeIterator(lo, hi).countRemaining();
+    }
+
+    private long countRemaining() {
+        long count = pendingTwo ? 1 : 0;
+        pendingTwo = false;
+        count += Long.bitCount(remaining);
+        remaining = 0;
+        while (true) {
+            for (word++; word < (segmentCount + 63) / 64; word++) {
+                count += Long.bitCount(segment[word]);
+            }
+            if (segmentStart >= hi) {
+                return count;
+            }
+            nextSegment();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pendingTwo) {
+            return true;
+        }
+        while (remaining == 0) {
+            if (word + 1 < (segmentCount + 63) / 64) {
+                word++;
+                remaining = segment[word];
+            } else if (segmentStart < hi) {
+                nextSegment();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (pendingTwo) {
+            pendingTwo = false;
+            return 2;
+        }
+        long bit = (long) word * 64 + Long.numberOfTrailingZeros(remaining);
+        remaining &= remaining - 1;
+        return segmentFirstOdd + 2 * bit;
+    }
+
+    private void nextSegment() {
+        long segmentEnd = segmentStart + 2L * segmentBits;
+        if (segmentEnd < segmentStart || segmentEnd > hi) {
+            segmentEnd = hi;
+        }
+        basePrimes = basePrimesFor(basePrimes, segmentEnd, hi);
+        segmentFirstOdd = segmentStart | 1;
+        segmentCount = sieveSegment(segmentStart, segmentEnd, basePrimes, segment);
+        segmentStart = segmentEnd;
+        word = -1;
+        remaining = 0;
+    }
+
+    // a base prime table that covers sqrt(segmentEnd - 1), growing the current one geometrically up to sqrt(hi - 1)
+    static WheelSieve basePrimesFor(WheelSieve current, long segmentEnd, long hi) {
+        long needed = sqrt(segmentEnd - 1);
+        if (current != null && current.limit() >= needed) {
+            return current;
+        }
+        long grown = current == null ? needed : Math.max(needed, Math.min(2 * current.limit(), sqrt(hi - 1)));
+        return new WheelSieve(Math.max(grown, 7));
+    }
+
+    // marks the odd primes in [from, to) in bits (bit j is the odd number (from | 1) + 2j) and returns how many bits are used
+    static int sieveSegment(long from, long to, WheelSieve basePrimes, long bits[]) {
+        SolverInstrumentation.SieveSegmentEvent event = new SolverInstrumentation.SieveSegmentEvent();
+        if (!SolverInstrumentation.enabled(event)) {
+            return markSegment(from, to, basePrimes, bits);
+        }
+        long start = System.nanoTime();
+        event.begin();
+        int count = markSegment(from, to, basePrimes, bits);
+        event.end();
+        long nanos = System.nanoTime() - start;
+        SolverInstrumentation.metrics().sieveSegment(from, to, nanos);
+        if (event.shouldCommit()) {
+            event.from = from;
+            event.to = to;
+            event.nanos = nanos;
+            event.commit();
+        }
+        return count;
+    }
+
+    private static int markSegment(long from, long to, WheelSieve basePrimes, long bits[]) {
+        long firstOdd = from | 1;
+        if (firstOdd >= to) {
+            return 0;
+        }
+        int count = (int) ((to - firstOdd + 1) / 2);
+        int usedWords = (count + 63) / 64;
+        Arrays.fill(bits, 0, usedWords, -1L);
+        if (count % 64 != 0) {
+            bits[usedWords - 1] = -1L >>> (64 - count % 64);
+        }
+        if (firstOdd == 1) {
+            bits[0] &= ~1L; // 1 isn't prime
+        }
+
+        long last = to - 1;
+        crossOut(3, firstOdd, last, count, bits);
+        crossOut(5, firstOdd, last, count, bits);
+        long baseWords[] = basePrimes.words();
+        for (int w = 0; w < baseWords.length; w++) {
+            long primesInWord = baseWords[w];
+            while (primesInWord != 0) {
+                long p = WheelSieve.valueOf((long) w * 64 + Long.numberOfTrailingZeros(primesInWord));
+                if (p > last / p) {
+                    return count;
+                }
+                crossOut(p, firstOdd, last, count, bits);
+                primesInWord &= primesInWord - 1;
+            }
+        }
+        return count;
+    }
+
+    // crosses out the odd multiples of the odd prime p between firstOdd and last, but never p itself
+    private static void crossOut(long p, long firstOdd, long last, int count, long bits[]) {
+        if (p > last / p) {
+            return;
+        }
+        long start = p * p;
+        if (start < firstOdd) {
+            long remainder = firstOdd % p;
+            start = remainder == 0 ? firstOdd : firstOdd + (p - remainder);
+            if ((start & 1) == 0) {
+                start += p;
+            }
+        }
+        // start can only overflow right at the top of the long range, and then there is nothing left to cross out
+        if (start < 0 || start > last) {
+            return;
+        }
+        for (long j = (start - firstOdd) / 2; j < count; j += p) {
+            bits[(int) (j >>> 6)] &= ~(1L << j);
+        }
+    }
+
+    static long sqrt(long n) {
+        long root = (long) Math.sqrt((double) n);
+        // 3037000499 is the largest root whose square still fits in a long
+        while (root > 3_037_000_499L || root * root > n) {
+            root--;
+        }
+        while ((root + 1) * (root + 1) <= n && (root + 1) * (root + 1) > 0) {
+            root++;
+        }
+        return root;
+    }
+
+    public static void main(String[] args) {
+        System.out.println(Arrays.toString(primes(0, 100).toArray()));
+
+        // the first prime after 10^12 shows up long before the range could ever be sieved
+        long start = System.nanoTime();
+        long first = primes(1_000_000_000_000L, Long.MAX_VALUE).findFirst().getAsLong();
+        System.out.println(first + " after " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
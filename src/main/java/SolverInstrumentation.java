@@ -0,0 +1,155 @@
+/*
+Instrumenting the Solvers:
+
+When a knapsack takes 8 seconds in production, the first questions are: how big was it, how much of the table got
+filled, how much memory did it take, and was the memo doing its job? The solvers report those facts in two ways:
+
+SolverMetrics: an interface with one method per fact, all of them doing nothing by default. Install an implementation
+with SolverInstrumentation.install() to feed a metrics library (counters, histograms, ...).
+
+JFR events: KnapsackSolveEvent and SieveSegmentEvent show up in Java Flight Recorder recordings (for example with
+java -XX:StartFlightRecording ...) alongside the garbage collector's and the JIT's own events.
+
+When nothing is listening, instrumentation has to cost next to nothing:
+
+The installed metrics sit in a volatile field that starts out as NOOP. As long as only one implementation is ever seen,
+the JIT inlines its empty methods away, leaving a single field read.
+A JFR event is created, begun and ended unconditionally (the JIT removes the allocation once it sees the event doesn't
+escape), but its fields are only filled in and committed when shouldCommit() says a recording wants it.
+The expensive extras (reading the clock, asking the JVM how many bytes the thread has allocated) only happen when
+enabled() says someone is listening.
+
+Every public knapsack entry point wraps its work in a KnapsackSolve and reports under its own name ("rolling",
+"parallel", "vector", "batch", "pareto", "branch-and-bound", ...). When one solver hands the work to another (the
+parallel solver below its cutoff, say), it calls the other's uninstrumented core, so each top-level solve is reported
+exactly once.
+*/
+
+import java.lang.management.ManagementFactory;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+public class SolverInstrumentation {
+
+    // names the memoized solvers report under
+    static final String FIB_MEMO = "fibMemo";
+    static final String KNAPSACK_MEMO = "knapSack";
+
+    private static volatile SolverMetrics metrics = SolverMetrics.NOOP;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private SolverInstrumentation() {
+    }
+
+    public static SolverMetrics metrics() {
+        return metrics;
+    }
+
+    // installs metrics for every solver (null puts back NOOP)
+    public static void install(SolverMetrics installed) {
+        metrics = installed == null ? SolverMetrics.NOOP : installed;
+    }
+
+    // whether anyone is listening for solves or segments, so they're worth timing
+    static boolean enabled(Event event) {
+        return metrics != SolverMetrics.NOOP || event.isEnabled();
+    }
+
+    // bytes the current thread has allocated so far, or 0 if the JVM can't tell
+    static long allocatedBytes() {
+        return THREADS == null ? 0 : Math.max(0, THREADS.getCurrentThreadAllocatedBytes());
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        } catch (ClassCastException e) {
+            return null;
+        }
+    }
+
+    // one top-level knapsack solve: created before the work starts, and finished once with the size of the problem
+    static final class KnapsackSolve {
+        private final KnapsackSolveEvent event = new KnapsackSolveEvent();
+        private final boolean instrumented;
+        private final long start;
+        private final long allocatedBefore;
+        private long cells;
+
+        KnapsackSolve() {
+            instrumented = enabled(event);
+            start = instrumented ? System.nanoTime() : 0;
+            allocatedBefore = instrumented ? allocatedBytes() : 0;
+            event.begin();
+        }
+
+        // table cells filled in (or, for the solvers without a table, frontier pairs, search nodes or subsets)
+        void addCells(long filled) {
+            cells += filled;
+        }
+
+        // hands the finished solve to the installed metrics and, if a recording wants it, to JFR
+        void finish(String solver, int items, long capacity) {
+            event.end();
+            if (!instrumented) {
+                return;
+            }
+            long allocated = allocatedBytes() - allocatedBefore;
+            long nanos = System.nanoTime() - start;
+            metrics.knapsackSolved(solver, items, capacity, cells, allocated, nanos);
+            if (event.shouldCommit()) {
+                event.solver = solver;
+                event.items = items;
+                event.capacity = capacity;
+                event.cellsFilled = cells;
+                event.bytesAllocated = allocated;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("dp.KnapsackSolve")
+    @Label("Knapsack Solve")
+    @Category({ "Dynamic Programming", "Knapsack" })
+    @Description("One knapsack solved by one of the knapsack solvers")
+    static final class KnapsackSolveEvent extends Event {
+        @Label("Solver")
+        String solver;
+
+        @Label("Items")
+        int items;
+
+        @Label("Capacity")
+        long capacity;
+
+        @Label("Cells Filled")
+        long cellsFilled;
+
+        @Label("Allocated")
+        @DataAmount
+        long bytesAllocated;
+    }
+
+    @Name("dp.SieveSegment")
+    @Label("Sieve Segment")
+    @Category({ "Dynamic Programming", "Sieve" })
+    @Description("One window of a segmented prime sieve")
+    static final class SieveSegmentEvent extends Event {
+        @Label("From")
+        long from;
+
+        @Label("To")
+        long to;
+
+        @Label("Sieve Time")
+        @Timespan
+        long nanos;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+Solver Metrics:
+
+The facts the solvers report, one method each. Every method does nothing by default, so an implementation only overrides
+the ones it cares about, and a new method can be added without breaking anyone. See SolverInstrumentation for how to
+install one and why an uninstalled one costs next to nothing.
+
+Implementations are called from whichever threads run the solvers, so they have to be thread-safe, and they should be
+quick: they run inside the solvers' loops.
+*/
+
+public interface SolverMetrics {
+
+    // does nothing at all
+    SolverMetrics NOOP = new SolverMetrics() {
+    };
+
+    // a knapsack was solved: its size, how many table cells were filled in (frontier pairs, search nodes or subsets for
+    // the solvers without a table), how many bytes the solving thread allocated (0 if the JVM can't tell) and how long it
+    // took
+    default void knapsackSolved(String solver, int items, long capacity, long cellsFilled, long bytesAllocated,
+            long nanos) {
+    }
+
+    // a memoized solver (SolverInstrumentation.FIB_MEMO or KNAPSACK_MEMO) found a subproblem in its memo
+    default void memoHit(String solver) {
+    }
+
+    // ... or didn't, and had to evaluate it
+    default void memoMiss(String solver) {
+    }
+
+    // one window [from, to) of a segmented sieve was sieved
+    default void sieveSegment(long from, long to, long nanos) {
+    }
+}
@@ -0,0 +1,174 @@
+/*
+Capturing Rainwater from a File:
+
+efficientSolution() needs every height in one int[] on the heap, and adds the water up in an int. A multi-gigabyte
+terrain profile doesn't fit in an array (or its water in an int), but it doesn't have to: the water can be found by
+reading the file twice, front to back, a chunk at a time.
+
+The water above bar i is min(highest bar to its left, highest bar to its right) - heights[i] (counting bar i itself on
+both sides). Let M be the tallest height and k the LAST bar that reaches it. Then:
+
+for i <= k, the highest bar to the right is M, which is at least the highest bar to the left, so
+    water[i] = (highest bar in heights[0 ... i]) - heights[i]
+for i > k, every bar to the left includes M, which is taller than anything to the right, so
+    water[i] = (highest bar in heights[i ... n - 1]) - heights[i]
+
+Pass 1 reads the whole file once to find M and k. Pass 2 reads [0, k] forwards, keeping a running maximum, and then
+(k, n) backwards, chunk by chunk, keeping a running maximum from the right. Only one chunk is in memory at a time, and the
+total is kept in a long.
+
+The heights are 4-byte ints in the given byte order. A file is memory-mapped one chunk at a time (a single mapping can't
+be bigger than 2 GB anyway); any other SeekableByteChannel is read into one reusable direct buffer. A ChunkListener hears
+about the water in each piece of the file as soon as it's known, so callers can stream partial results.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class StreamingRainWater {
+
+    // 4 MB of heights per chunk
+    static final int DEFAULT_CHUNK_HEIGHTS = 1 << 20;
+
+    // told the water above heights[firstIndex ... firstIndex + count). The pieces cover every bar exactly once, but the
+    // ones after the last tallest bar arrive from right to left.
+    public interface ChunkListener {
+        void chunkDone(long firstIndex, int count, long water);
+    }
+
+    private static final ChunkListener IGNORE = (firstIndex, count, water) -> { };
+
+    private StreamingRainWater() {
+    }
+
+    // the water captured by the heights in file, memory-mapped a chunk at a time
+    public static long totalWater(Path file, ByteOrder order) throws IOException {
+        return totalWater(file, order, DEFAULT_CHUNK_HEIGHTS, IGNORE);
+    }
+
+    public static long totalWater(Path file, ByteOrder order, int chunkHeights, ChunkListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long n = heightCount(channel.size());
+            return totalWater(n, chunkHeights, listener, (firstIndex, count) ->
+                    channel.map(FileChannel.MapMode.READ_ONLY, firstIndex * Integer.BYTES, (long) count * Integer.BYTES)
+                            .order(order).asIntBuffer());
+        }
+    }
+
+    // the water captured by the heights in channel, from its start to its end. The channel is read twice, so it has to
+    // be seekable; it is left open.
+    public static long totalWater(SeekableByteChannel channel, ByteOrder order, int chunkHeights, ChunkListener listener)
+            throws IOException {
+        long n = heightCount(channel.size());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(checkChunk(chunkHeights) * Integer.BYTES).order(order);
+        return totalWater(n, chunkHeights, listener, (firstIndex, count) -> {
+            buffer.clear().limit(count * Integer.BYTES);
+            channel.position(firstIndex * Integer.BYTES);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("channel ended before height " + (firstIndex + count));
+                }
+            }
+            buffer.flip();
+            return buffer.asIntBuffer();
+        });
+    }
+
+    // reads heights[firstIndex ... firstIndex + count)
+    private interface ChunkReader {
+        IntBuffer read(long firstIndex, int count) throws IOException;
+    }
+
+    private static long totalWater(long n, int chunkHeights, ChunkListener listener, ChunkReader reader)
+            throws IOException {
+        checkChunk(chunkHeights);
+        if (n == 0) {
+            return 0;
+        }
+
+        // pass 1: the tallest height, and the last bar that reaches it
+        int tallest = Integer.MIN_VALUE;
+        long lastTallest = 0;
+        for (long first = 0; first < n; first += chunkHeights) {
+            int count = (int) Math.min(chunkHeights, n - first);
+            IntBuffer heights = reader.read(first, count);
+            for (int i = 0; i < count; i++) {
+                int height = heights.get(i);
+                if (height >= tallest) {
+                    tallest = height;
+                    lastTallest = first + i;
+                }
+            }
+        }
+
+        // pass 2, forwards over [0, lastTallest]: bounded by the highest bar on the left
+        long totalWater = 0;
+        int leftBound = Integer.MIN_VALUE;
+        for (long first = 0; first <= lastTallest; first += chunkHeights) {
+            int count = (int) Math.min(chunkHeights, lastTallest + 1 - first);
+            IntBuffer heights = reader.read(first, count);
+            long water = 0;
+            for (int i = 0; i < count; i++) {
+                int height = heights.get(i);
+                leftBound = Math.max(leftBound, height);
+                water += (long) leftBound - height;
+            }
+            listener.chunkDone(first, count, water);
+            totalWater += water;
+        }
+
+        // and backwards over (lastTallest, n): bounded by the highest bar on the right
+        int rightBound = Integer.MIN_VALUE;
+        for (long end = n; end > lastTallest + 1; end -= chunkHeights) {
+            int count = (int) Math.min(chunkHeights, end - (lastTallest + 1));
+            long first = end - count;
+            IntBuffer heights = reader.read(first, count);
+            long water = 0;
+            for (int i = count - 1; i >= 0; i--) {
+                int height = heights.get(i);
+                rightBound = Math.max(rightBound, height);
+                water += (long) rightBound - height;
+            }
+            listener.chunkDone(first, count, water);
+            totalWater += water;
+        }
+        return totalWater;
+    }
+
+    private static long heightCount(long bytes) throws IOException {
+        if (bytes % Integer.BYTES != 0) {
+            throw new IOException("the file holds " + bytes + " bytes, which isn't a whole number of 4-byte heights");
+        }
+        return bytes / Integer.BYTES;
+    }
+
+    private static int checkChunk(int chunkHeights) {
+        if (chunkHeights < 1 || chunkHeights > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("chunkHeights must be between 1 and " + Integer.MAX_VALUE / Integer.BYTES
+                    + ": " + chunkHeights);
+        }
+        return chunkHeights;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : "heights.bin");
+        int heights[] = new int[] { 4, 2, 1, 3, 0, 1, 2 };
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(heights.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asIntBuffer().put(heights);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        System.out.println("Amount of water captured: " + totalWater(file, ByteOrder.LITTLE_ENDIAN, 3,
+                (firstIndex, count, water) -> System.out.println("  heights " + firstIndex + " to "
+                        + (firstIndex + count - 1) + ": " + water)));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+Vectorized Knapsack Rows:
+
+Look at the line that does all of the work in the dynamic programming knapsack:
+
+matrix[index][weight] = Math.max(values[index - 1] + matrix[index - 1][weight - weights[index - 1]], matrix[index - 1][weight]);
+
+For a single item, that's the row above shifted right by the item's weight, plus the item's value, followed by an
+elementwise max with the row above. Both rows are contiguous ints, which is exactly what SIMD instructions are good at: an
+AVX2 core can add and compare 8 ints in one instruction instead of one at a time.
+
+The Vector API (jdk.incubator.vector) lets us write that directly in Java:
+
+for every item:
+    copy the weights below the item's weight from the row above
+    for every block of lanes starting at the item's weight:
+        above   = the row above at [weight ... weight + lanes)
+        shifted = the row above at [weight - item weight ... ) + value of item
+        next row at [weight ... weight + lanes) = max(above, shifted)
+
+The module is still incubating, so it only exists when the JVM is started with --add-modules jdk.incubator.vector. When
+it isn't there we fall back to the plain scalar loop, which gives the same answers.
+*/
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorKnapsack {
+
+    static final RowKernel KERNEL = RowKernel.best();
+
+    // same answer as the tutorial knapSack(), filled one row at a time with the best available kernel
+    static int knapSack(int weightCap, int weights[], int values[]) {
+        return knapSack(weightCap, weights, values, KERNEL);
+    }
+
+    static int knapSack(int weightCap, int weights[], int values[], RowKernel kernel) {
+        RollingKnapsack.checkInputs(weightCap, weights, values);
+        SolverInstrumentation.KnapsackSolve instrumented = new SolverInstrumentation.KnapsackSolve();
+        int previous[] = new int[weightCap + 1];
+        int next[] = new int[weightCap + 1];
+        for (int item = 0; item < weights.length; item++) {
+            kernel.update(previous, next, weights[item], values[item], weightCap);
+            int swap[] = previous;
+            previous = next;
+            next = swap;
+        }
+        instrumented.addCells(RollingKnapsack.cellsFilled(weightCap, weights));
+        instrumented.finish("vector", weights.length, weightCap);
+        return previous[weightCap];
+    }
+
+    // the existing tutorial loop, kept here so the kernels can be timed against it
+    static int matrixKnapSack(int weightCap, int weights[], int values[]) {
+        int i = weights.length;
+        int matrix[][] = new int[i + 1][weightCap + 1];
+        for (int index = 1; index <= i; index++) {
+            for (int weight = 1; weight <= weightCap; weight++) {
+                if (weights[index - 1] <= weight) {
+                    matrix[index][weight] = Math.max(
+                            values[index - 1] + matrix[index - 1][weight - weights[index - 1]],
+                            matrix[index - 1][weight]);
+                } else {
+                    matrix[index][weight] = matrix[index - 1][weight];
+                }
+            }
+        }
+        return matrix[i][weightCap];
+    }
+
+    public static void main(String[] args) {
+        int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+        int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+        System.out.println(KERNEL.getClass().getSimpleName() + ": " + knapSack(50, weights, values));
+
+        // a rough single-threaded comparison against the matrix loop
+        java.util.Random random = new java.util.Random(42);
+        int items = 2_000;
+        int weightCap = 20_000;
+        int bigWeights[] = new int[items];
+        int bigValues[] = new int[items];
+        for (int item = 0; item < items; item++) {
+            bigWeights[item] = 1 + random.nextInt(1_000);
+            bigValues[item] = random.nextInt(1_000);
+        }
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int expected = matrixKnapSack(weightCap, bigWeights, bigValues);
+            long matrixNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int actual = knapSack(weightCap, bigWeights, bigValues);
+            long kernelNanos = System.nanoTime() - start;
+            System.out.printf("matrix %d ms, %s %d ms, speedup %.1fx, same answer: %b%n",
+                    matrixNanos / 1_000_000, KERNEL.getClass().getSimpleName(), kernelNanos / 1_000_000,
+                    (double) matrixNanos / kernelNanos, expected == actual);
+        }
+    }
+}
+
+// fills next from previous for a single item: next[w] = max(previous[w], value + previous[w - itemWeight])
+interface RowKernel {
+
+    void update(int previous[], int next[], int itemWeight, int value, int weightCap);
+
+    // the vector kernel is only loaded by name, so this class still links when the incubator module is missing
+    static RowKernel best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (RowKernel) Class.forName("VectorRowKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall through to the scalar kernel
+            }
+        }
+        return new ScalarRowKernel();
+    }
+}
+
+final class ScalarRowKernel implements RowKernel {
+
+    @Override
+    public void update(int previous[], int next[], int itemWeight, int value, int weightCap) {
+        int split = Math.min(itemWeight, weightCap + 1);
+        System.arraycopy(previous, 0, next, 0, split);
+        for (int weight = split; weight <= weightCap; weight++) {
+            next[weight] = Math.max(previous[weight], value + previous[weight - itemWeight]);
+        }
+    }
+}
+
+final class VectorRowKernel implements RowKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void update(int previous[], int next[], int itemWeight, int value, int weightCap) {
+        int split = Math.min(itemWeight, weightCap + 1);
+        System.arraycopy(previous, 0, next, 0, split);
+        int weight = split;
+        int upper = split + SPECIES.loopBound(weightCap + 1 - split);
+        for (; weight < upper; weight += SPECIES.length()) {
+            IntVector above = IntVector.fromArray(SPECIES, previous, weight);
+            IntVector shifted = IntVector.fromArray(SPECIES, previous, weight - itemWeight).add(value);
+            above.max(shifted).intoArray(next, weight);
+        }
+        // whatever doesn't fill a whole vector is finished one element at a time
+        for (; weight <= weightCap; weight++) {
+            next[weight] = Math.max(previous[weight], value + previous[weight - itemWeight]);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+Wheel Sieve:
+
+The sieve at the end of the tutorial spends a whole boolean (one byte) on every number up to the limit, even though half
+of them are even and can't be prime. At a limit of 4 billion that's 4GB, and Java can't even make the array: array
+indices are ints, which stop at about 2.1 billion. It also calls Math.pow() on doubles inside its loops.
+
+We can do a lot better by not storing the numbers we already know aren't prime. Every prime above 5 leaves a remainder
+of 1, 7, 11, 13, 17, 19, 23 or 29 when divided by 2 * 3 * 5 = 30; every other remainder is divisible by 2, 3 or 5. Those
+8 remainders are called a wheel. So each block of 30 numbers only needs 8 bits:
+
+bit index of n = (n / 30) * 8 + (position of n % 30 in the wheel)
+
+which is one byte for every 30 numbers, 30 times less than a boolean per number. The bits are packed into a long[], so the
+4 billion sieve fits in about 17MB.
+
+Marking the multiples of a prime p stays in integer arithmetic too. The multiples we care about are p * q, where q is
+also on the wheel (any other q makes a multiple of 2, 3 or 5, which isn't stored). If q goes up by 30, p * q goes up by
+30 * p, which moves the bit index forward by exactly 8 * p. So for each of the 8 wheel positions of q we find the first
+multiple once, and then just step forward by 8 * p bits:
+
+for every prime p from 7 while p * p <= limit:
+    for each of the 8 wheel remainders r:
+        q = the first number >= p with q % 30 == r
+        bit = bit index of p * q
+        while bit is in range: clear bit, bit += 8 * p
+*/
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+public class WheelSieve {
+
+    // the numbers below 30 that aren't divisible by 2, 3 or 5
+    static final int WHEEL[] = { 1, 7, 11, 13, 17, 19, 23, 29 };
+
+    // WHEEL_INDEX[n % 30] is the position of n on the wheel, or -1 if n is divisible by 2, 3 or 5
+    static final int WHEEL_INDEX[] = new int[30];
+
+    static {
+        Arrays.fill(WHEEL_INDEX, -1);
+        for (int k = 0; k < WHEEL.length; k++) {
+            WHEEL_INDEX[WHEEL[k]] = k;
+        }
+    }
+
+    private final long limit;
+    private final long bits;
+    private final long words[];
+
+    // finds all of the primes up to and including limit
+    public WheelSieve(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        this.bits = countWheelNumbers(limit);
+        if ((bits + 63) / 64 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("limit is too large for a single bitset: " + limit);
+        }
+        this.words = new long[(int) ((bits + 63) / 64)];
+        Arrays.fill(words, -1L);
+        // clear the bits past the end, so counting and scanning never see them
+        if (bits % 64 != 0) {
+            words[words.length - 1] = -1L >>> (64 - bits % 64);
+        }
+        if (bits > 0) {
+            clear(0); // 1 is on the wheel but isn't prime
+        }
+        sieve();
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    public boolean isPrime(long n) {
+        if (n < 0 || n > limit) {
+            throw new IllegalArgumentException("n must be between 0 and " + limit + ": " + n);
+        }
+        if (n < 7) {
+            return n == 2 || n == 3 || n == 5;
+        }
+        int position = WHEEL_INDEX[(int) (n % 30)];
+        return position >= 0 && get((n / 30) * 8 + position);
+    }
+
+    // how many primes there are up to limit
+    public long count() {
+        long count = smallPrimes();
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // hands every prime up to limit to action, in increasing order
+    public void forEachPrime(LongConsumer action) {
+        for (long prime = 2; prime <= Math.min(5, limit); prime++) {
+            if (prime != 4) {
+                action.accept(prime);
+            }
+        }
+        for (int word = 0; word < words.length; word++) {
+            long remaining = words[word];
+            while (remaining != 0) {
+                long bit = (long) word * 64 + Long.numberOfTrailingZeros(remaining);
+                action.accept(valueOf(bit));
+                remaining &= remaining - 1;
+            }
+        }
+    }
+
+    // the number stored at a bit index
+    static long valueOf(long bit) {
+        return (bit >>> 3) * 30 + WHEEL[(int) (bit & 7)];
+    }
+
+    // how many numbers from 0 to n are on the wheel
+    static long countWheelNumbers(long n) {
+        long count = (n / 30) * 8;
+        int remainder = (int) (n % 30);
+        for (int r : WHEEL) {
+            if (r <= remainder) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // the raw bitset; shared with the prime index, which stores it as-is
+    long[] words() {
+        return words;
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    private int smallPrimes() {
+        return limit >= 5 ? 3 : limit >= 3 ? 2 : limit >= 2 ? 1 : 0;
+    }
+
+    private void sieve() {
+        for (long bit = 1; bit < bits; bit++) {
+            if (!get(bit)) {
+                continue;
+            }
+            long p = valueOf(bit);
+            if (p > limit / p) {
+                break;
+            }
+            long step = 8 * p;
+            for (int r : WHEEL) {
+                // the first q >= p with q % 30 == r
+                long q = p - p % 30 + r;
+                if (q < p) {
+                    q += 30;
+                }
+                long multiple = p * q;
+                if (multiple > limit) {
+                    continue;
+                }
+                for (long index = (multiple / 30) * 8 + WHEEL_INDEX[(int) (multiple % 30)]; index < bits; index += step) {
+                    clear(index);
+                }
+            }
+        }
+    }
+
+    private boolean get(long bit) {
+        return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    private void clear(long bit) {
+        words[(int) (bit >>> 6)] &= ~(1L << bit);
+    }
+
+    public static void main(String[] args) {
+        WheelSieve sieve = new WheelSieve(100);
+        StringBuilder primes = new StringBuilder();
+        sieve.forEachPrime(prime -> primes.append(prime).append(' '));
+        System.out.println(primes.toString().trim());
+        System.out.println(new WheelSieve(1_000_000_000L).count());
+    }
+}
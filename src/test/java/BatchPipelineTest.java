@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BatchPipelineTest {
+
+    @Test
+    void primeCountMatchesTheStream() {
+        Random random = new Random(22);
+        for (int round = 0; round < 50; round++) {
+            long lo = random.nextInt(3_000_000);
+            long hi = lo + random.nextInt(2_000_000);
+            assertEquals(SegmentedPrimeIterator.primes(lo, hi).count(),
+                    BatchPipeline.solve(BatchPipeline.PRIME_COUNT, primeCount(lo, hi)), "[" + lo + ", " + hi + ")");
+        }
+    }
+
+    @Test
+    void primeCountRejectsSpansAboveTheLimit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchPipeline.solve(BatchPipeline.PRIME_COUNT, primeCount(0, BatchPipeline.MAX_PRIME_SPAN + 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchPipeline.solve(BatchPipeline.PRIME_COUNT, primeCount(5, Long.MAX_VALUE)));
+    }
+
+    @Test
+    void knapsackAndRainwaterFramesMatchTheArraySolvers() {
+        Random random = new Random(220);
+        for (int round = 0; round < 100; round++) {
+            int n = random.nextInt(20);
+            int weights[] = new int[n];
+            int values[] = new int[n];
+            int heights[] = new int[n];
+            for (int item = 0; item < n; item++) {
+                weights[item] = random.nextInt(30);
+                values[item] = random.nextInt(100);
+                heights[item] = random.nextInt(50);
+            }
+            int weightCap = random.nextInt(100);
+            ByteBuffer frames = ByteBuffer.allocate(1 << 10).order(ByteOrder.LITTLE_ENDIAN);
+            BatchPipeline.putKnapsack(frames, weightCap, weights, values);
+            assertEquals(RollingKnapsack.knapSack(weightCap, weights, values),
+                    BatchPipeline.solve(BatchPipeline.KNAPSACK, payload(frames)), "round " + round);
+            frames.clear();
+            BatchPipeline.putRainWater(frames, heights);
+            assertEquals(new ParallelRainWater().totalWater(heights),
+                    BatchPipeline.solve(BatchPipeline.RAINWATER, payload(frames)), "round " + round);
+        }
+    }
+
+    @Test
+    void errorMessagesAreCutBetweenCharacters() {
+        // one, two, three and four byte characters
+        String message = "a\u00e9\u20ac\ud83d\ude00".repeat(10);
+        byte utf8[] = message.getBytes(StandardCharsets.UTF_8);
+        for (int maxBytes = 0; maxBytes <= utf8.length + 1; maxBytes++) {
+            int length = BatchPipeline.utf8Prefix(utf8, maxBytes);
+            String cut = new String(utf8, 0, length, StandardCharsets.UTF_8);
+            assertTrue(message.startsWith(cut), "maxBytes " + maxBytes);
+            assertEquals(length, cut.getBytes(StandardCharsets.UTF_8).length, "maxBytes " + maxBytes);
+            // nothing is given up but the character that didn't fit
+            assertTrue(length > maxBytes - 4, "maxBytes " + maxBytes);
+        }
+    }
+
+    // the payload of the frame just written to frames
+    private static ByteBuffer payload(ByteBuffer frames) {
+        frames.flip();
+        return frames.slice(BatchPipeline.HEADER_BYTES, frames.limit() - BatchPipeline.HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer primeCount(long lo, long hi) {
+        ByteBuffer payload = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        payload.putLong(lo).putLong(hi).flip();
+        return payload;
+    }
+}
@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BranchAndBoundKnapsackTest {
+
+    @Test
+    void densityOrderIsExactAndStable() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            int count = random.nextInt(60);
+            int weights[] = new int[count];
+            int values[] = new int[count];
+            for (int item = 0; item < count; item++) {
+                if (random.nextBoolean()) {
+                    // densities of 1 + 1/w for huge w, which all round to the same float
+                    weights[item] = Integer.MAX_VALUE - 1 - random.nextInt(1_000);
+                    values[item] = weights[item] + 1;
+                } else {
+                    weights[item] = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(20);
+                    values[item] = random.nextInt(20);
+                }
+            }
+            assertArrayEquals(boxedByDensity(Long.MAX_VALUE, weights, values),
+                    BranchAndBoundKnapsack.byDensity(Long.MAX_VALUE, weights, values), "round " + round);
+        }
+    }
+
+    @Test
+    void matchesRollingKnapsack() {
+        Random random = new Random(50);
+        for (int round = 0; round < 200; round++) {
+            int count = random.nextInt(16);
+            int weights[] = new int[count];
+            int values[] = new int[count];
+            for (int item = 0; item < count; item++) {
+                weights[item] = random.nextInt(30);
+                values[item] = random.nextInt(100);
+            }
+            int weightCap = random.nextInt(100);
+            assertEquals(RollingKnapsack.knapSack(weightCap, weights, values),
+                    BranchAndBoundKnapsack.solve(weightCap, weights, values).value(), "round " + round);
+        }
+    }
+
+    // the order a stable comparator sort gives, for comparison
+    private static int[] boxedByDensity(long weightCap, int weights[], int values[]) {
+        return Arrays.stream(indices(weights.length))
+                .filter(item -> values[item] > 0 && weights[item] <= weightCap)
+                .boxed()
+                .sorted((a, b) -> Long.compare((long) values[b] * weights[a], (long) values[a] * weights[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int[] indices(int count) {
+        int indices[] = new int[count];
+        for (int k = 0; k < count; k++) {
+            indices[k] = k;
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FibonacciEngineTest {
+
+    @Test
+    void batchMatchesSingleQueries() {
+        Random random = new Random(14);
+        int queries = 500;
+        long ns[] = new long[queries];
+        long ms[] = new long[queries];
+        // a handful of moduli shared by many queries, some tiny and some past Integer.MAX_VALUE
+        long moduli[] = new long[] { 1, 2, 10, 1_000_000_007L, 1L << 40, Long.MAX_VALUE };
+        for (int query = 0; query < queries; query++) {
+            ns[query] = random.nextLong() & Long.MAX_VALUE;
+            ms[query] = moduli[random.nextInt(moduli.length)];
+        }
+        long answers[] = FibonacciEngine.fibMod(ns, ms);
+        for (int query = 0; query < queries; query++) {
+            assertEquals(FibonacciEngine.fibMod(ns[query], ms[query]), answers[query], "query " + query);
+        }
+    }
+
+    @Test
+    void mulModMatchesBigInteger() {
+        Random random = new Random(140);
+        long moduli[] = new long[] { 3_037_000_499L, 3_037_000_500L, 1L << 32, (1L << 32) + 1, 1L << 62, (1L << 62) + 1,
+                Long.MAX_VALUE - 1, Long.MAX_VALUE };
+        for (int round = 0; round < 20_000; round++) {
+            long m = round < moduli.length * 100 ? moduli[round % moduli.length]
+                    : Math.max(1, (random.nextLong() >>> 1) >>> random.nextInt(32));
+            // the largest factors are the likeliest to need a correction
+            long a = round % 3 == 0 ? m - 1 : Math.floorMod(random.nextLong(), m);
+            long b = round % 5 == 0 ? Math.max(0, m - 1 - random.nextInt(4)) : Math.floorMod(random.nextLong(), m);
+            long expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(BigInteger.valueOf(m)).longValue();
+            assertEquals(expected, FibonacciEngine.mulMod(a, b, m), a + " * " + b + " mod " + m);
+        }
+    }
+}
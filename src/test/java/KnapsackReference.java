@@ -0,0 +1,37 @@
+import java.util.Random;
+
+// the tutorial's matrix knapsack, for the faster solvers to be checked against
+final class KnapsackReference {
+
+    private KnapsackReference() {
+    }
+
+    // the same loop as the tutorial, except that it fills column 0 too, which the tutorial skips and zero-weight items need
+    static long matrixKnapSack(int weightCap, int weights[], int values[]) {
+        int i = weights.length;
+        long matrix[][] = new long[i + 1][weightCap + 1];
+        for (int index = 1; index <= i; index++) {
+            for (int weight = 0; weight <= weightCap; weight++) {
+                if (weights[index - 1] <= weight) {
+                    matrix[index][weight] = Math.max(
+                            values[index - 1] + matrix[index - 1][weight - weights[index - 1]],
+                            matrix[index - 1][weight]);
+                } else {
+                    matrix[index][weight] = matrix[index - 1][weight];
+                }
+            }
+        }
+        return matrix[i][weightCap];
+    }
+
+    // { weights, values }, with about one in five weights and one in five values zero
+    static int[][] randomItems(Random random, int count, int maxWeight, int maxValue) {
+        int weights[] = new int[count];
+        int values[] = new int[count];
+        for (int item = 0; item < count; item++) {
+            weights[item] = random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(maxWeight);
+            values[item] = random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(maxValue);
+        }
+        return new int[][] { weights, values };
+    }
+}
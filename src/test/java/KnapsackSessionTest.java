@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class KnapsackSessionTest {
+
+    @Test
+    void matchesARebuildAfterEveryAddAndRemove() {
+        Random random = new Random(6);
+        for (int round = 0; round < 40; round++) {
+            int maxCapacity = random.nextInt(60);
+            KnapsackSession session = new KnapsackSession(maxCapacity, 1 + random.nextInt(5));
+            List<int[]> items = new ArrayList<int[]>();
+            for (int step = 0; step < 120; step++) {
+                if (items.isEmpty() || random.nextInt(3) != 0) {
+                    // zero weights and zero values included
+                    int weight = random.nextInt(4) == 0 ? 0 : random.nextInt(25);
+                    int value = random.nextInt(4) == 0 ? 0 : random.nextInt(100);
+                    items.add(new int[] { session.add(weight, value), weight, value });
+                } else {
+                    // mostly from either end, sometimes from the middle
+                    int pick = random.nextInt(4);
+                    int index = pick == 0 ? 0 : pick == 1 ? items.size() - 1 : random.nextInt(items.size());
+                    session.remove(items.remove(index)[0]);
+                }
+                int weights[] = new int[items.size()];
+                int values[] = new int[items.size()];
+                for (int item = 0; item < items.size(); item++) {
+                    weights[item] = items.get(item)[1];
+                    values[item] = items.get(item)[2];
+                }
+                long rebuilt[] = new long[maxCapacity + 1];
+                for (int capacity = 0; capacity <= maxCapacity; capacity++) {
+                    rebuilt[capacity] = RollingKnapsack.knapSack(capacity, weights, values);
+                    assertEquals(rebuilt[capacity], session.best(capacity), "round " + round + " step " + step);
+                }
+                assertArrayEquals(rebuilt, session.bestByCapacity(), "round " + round + " step " + step);
+                assertEquals(items.size(), session.size());
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnknownAndRemovedHandles() {
+        KnapsackSession session = new KnapsackSession(10);
+        int handle = session.add(3, 4);
+        session.remove(handle);
+        assertThrows(IllegalArgumentException.class, () -> session.remove(handle));
+        assertThrows(IllegalArgumentException.class, () -> session.remove(handle + 1));
+        assertThrows(IllegalArgumentException.class, () -> session.remove(-1));
+    }
+}
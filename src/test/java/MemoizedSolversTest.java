@@ -0,0 +1,37 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MemoizedSolversTest {
+
+    @Test
+    void zeroWeightItemsFitAnyCapacity() {
+        int weights[] = new int[] { 0, 1, 5 };
+        int values[] = new int[] { 18, 0, 16 };
+        MemoizedSolvers.MemoizedKnapsack knapsack = new MemoizedSolvers.MemoizedKnapsack(weights, values, 1 << 10);
+        assertEquals(34, knapsack.knapSack(5));
+        assertEquals(18, knapsack.knapSack(0));
+    }
+
+    @Test
+    void matchesRollingKnapsackOnRandomItems() {
+        Random random = new Random(15);
+        for (int round = 0; round < 500; round++) {
+            int count = random.nextInt(12);
+            int weights[] = new int[count];
+            int values[] = new int[count];
+            for (int item = 0; item < count; item++) {
+                // about one item in four weighs nothing
+                weights[item] = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(20);
+                values[item] = random.nextInt(50);
+            }
+            MemoizedSolvers.MemoizedKnapsack knapsack = new MemoizedSolvers.MemoizedKnapsack(weights, values, 1 << 12);
+            for (int weightCap = 0; weightCap <= 40; weightCap += 1 + random.nextInt(5)) {
+                assertEquals(RollingKnapsack.knapSack(weightCap, weights, values), knapsack.knapSack(weightCap),
+                        "round " + round + ", weightCap " + weightCap);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelKnapsackTest {
+
+    @Test
+    void matchesTheMatrixOnThePool() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(2);
+            for (int round = 0; round < 200; round++) {
+                int items[][] = KnapsackReference.randomItems(random, random.nextInt(25), 30, 100);
+                int weightCap = random.nextInt(120);
+                // a cutoff of 1 sends every row to the pool, and small blocks split it several ways
+                ParallelKnapsack knapsack = new ParallelKnapsack(pool, 1 + random.nextInt(16), 1);
+                assertEquals(KnapsackReference.matrixKnapSack(weightCap, items[0], items[1]),
+                        knapsack.knapSack(weightCap, items[0], items[1]), "round " + round);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void matchesTheMatrixBelowTheCutoff() {
+        Random random = new Random(20);
+        ParallelKnapsack knapsack = new ParallelKnapsack();
+        for (int round = 0; round < 100; round++) {
+            int items[][] = KnapsackReference.randomItems(random, random.nextInt(25), 30, 100);
+            int weightCap = random.nextInt(120);
+            assertEquals(KnapsackReference.matrixKnapSack(weightCap, items[0], items[1]),
+                    knapsack.knapSack(weightCap, items[0], items[1]), "round " + round);
+        }
+    }
+
+    @Test
+    void rejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelKnapsack(ForkJoinPool.commonPool(), 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelKnapsack(ForkJoinPool.commonPool(), 1, 0));
+    }
+}
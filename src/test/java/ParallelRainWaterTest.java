@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelRainWaterTest {
+
+    @Test
+    void matchesTheTwoPointersForEveryBlockSize() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(17);
+            for (int round = 0; round < 100; round++) {
+                int heights[] = RainWaterReference.randomHeights(random, random.nextInt(200));
+                long expected = RainWaterReference.efficientSolution(heights);
+                for (int blockSize : new int[] { 1, 2, 3, 7, 16, 64, 1 << 16 }) {
+                    assertEquals(expected, new ParallelRainWater(pool, blockSize).totalWater(heights),
+                            "round " + round + ", " + heights.length + " heights, blocks of " + blockSize);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void blockWaterWithoutWallsIsTheTwoPointers() {
+        Random random = new Random(170);
+        for (int round = 0; round < 200; round++) {
+            int heights[] = RainWaterReference.randomHeights(random, 1 + random.nextInt(100));
+            assertEquals(RainWaterReference.efficientSolution(heights),
+                    ParallelRainWater.blockWater(heights, 0, heights.length - 1, 0, 0), "round " + round);
+        }
+    }
+
+    @Test
+    void rejectsBadBlockSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelRainWater(ForkJoinPool.commonPool(), 0));
+    }
+}
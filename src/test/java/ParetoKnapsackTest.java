@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ParetoKnapsackTest {
+
+    @Test
+    void frontierAndAutoMatchTheMatrix() {
+        Random random = new Random(4);
+        for (int round = 0; round < 300; round++) {
+            // up to 200 items in a small knapsack, which sends knapSackAuto() to the dense table
+            int items[][] = KnapsackReference.randomItems(random, random.nextInt(round % 2 == 0 ? 25 : 200), 30, 1_000);
+            int weightCap = random.nextInt(120);
+            long expected = KnapsackReference.matrixKnapSack(weightCap, items[0], items[1]);
+            assertEquals(expected, ParetoKnapsack.knapSack(weightCap, items[0], items[1]), "round " + round);
+            assertEquals(expected, ParetoKnapsack.knapSackAuto(weightCap, items[0], items[1]), "round " + round);
+        }
+    }
+
+    @Test
+    void capacitiesTooBigForATableMatchEverySubset() {
+        Random random = new Random(40);
+        for (int round = 0; round < 100; round++) {
+            int count = random.nextInt(13);
+            int weights[] = new int[count];
+            int values[] = new int[count];
+            for (int item = 0; item < count; item++) {
+                weights[item] = random.nextInt(5) == 0 ? 0 : random.nextInt(Integer.MAX_VALUE);
+                values[item] = random.nextInt(5) == 0 ? 0 : random.nextInt(1_000_000);
+            }
+            long weightCap = (long) random.nextInt(Integer.MAX_VALUE) * 3;
+            long expected = everySubset(weightCap, weights, values);
+            assertEquals(expected, ParetoKnapsack.knapSack(weightCap, weights, values), "round " + round);
+            assertEquals(expected, ParetoKnapsack.knapSackAuto(weightCap, weights, values), "round " + round);
+        }
+    }
+
+    // tries all 2^n subsets
+    private static long everySubset(long weightCap, int weights[], int values[]) {
+        long best = 0;
+        for (int subset = 0; subset < 1 << weights.length; subset++) {
+            long weight = 0;
+            long value = 0;
+            for (int item = 0; item < weights.length; item++) {
+                if ((subset & 1 << item) != 0) {
+                    weight += weights[item];
+                    value += values[item];
+                }
+            }
+            if (weight <= weightCap) {
+                best = Math.max(best, value);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,32 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PrimeIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void buildsAndOpensAnIndex() throws IOException {
+        Path file = directory.resolve("primes.idx");
+        PrimeIndex.build(1_000_000, file);
+        PrimeIndex index = PrimeIndex.open(file);
+        assertEquals(78_498, index.pi(1_000_000));
+        assertEquals(999_983, index.nthPrime(78_498));
+    }
+
+    @Test
+    void buildRejectsLimitsThatOpenCantMap() {
+        // the largest limit whose bitset still fits in MAX_WORDS words (8 wheel numbers per 30), and the next one up
+        long limit = PrimeIndex.MAX_WORDS * 64 / 8 * 30;
+        assertEquals(PrimeIndex.MAX_WORDS, (WheelSieve.countWheelNumbers(limit) + 63) / 64);
+        assertThrows(IllegalArgumentException.class,
+                () -> PrimeIndex.build(limit + 1, directory.resolve("too-big.idx")));
+    }
+}
@@ -0,0 +1,50 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RainWaterGridTest {
+
+    @Test
+    void tiledFloodMatchesSingleFloodOnRandomGrids() {
+        Random random = new Random(19);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(40);
+            int cols = 1 + random.nextInt(40);
+            int heights[] = new int[rows * cols];
+            for (int cell = 0; cell < heights.length; cell++) {
+                heights[cell] = random.nextInt(1 + random.nextInt(100));
+            }
+            long expected = RainWaterGrid.trapWater(heights, rows, cols);
+            for (int tileSize : new int[] { 1, 2, 3, 7, 64 }) {
+                assertEquals(expected, RainWaterGrid.trapWaterTiled(heights, rows, cols, tileSize),
+                        "round " + round + ", " + rows + " x " + cols + ", tile " + tileSize);
+            }
+        }
+    }
+
+    @Test
+    void tiledFloodFollowsASerpentine() {
+        int size = 257;
+        int heights[] = serpentine(size);
+        assertEquals(0, RainWaterGrid.trapWater(heights, size, size));
+        assertEquals(0, RainWaterGrid.trapWaterTiled(heights, size, size, 16));
+        assertEquals(0, RainWaterGrid.trapWaterTiled(heights, size, size, 1));
+    }
+
+    // walls on every other row, each with a single gap at alternating ends, all around a wall-height rim; the inside is
+    // a floor of 0 leaking out through one gap in the rim, so no water stays
+    private static int[] serpentine(int size) {
+        int heights[] = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                boolean rim = row == 0 || col == 0 || row == size - 1 || col == size - 1;
+                boolean wall = row % 2 == 0 && col != (row % 4 == 0 ? 1 : size - 2);
+                heights[row * size + col] = rim || wall ? 100 : 0;
+            }
+        }
+        heights[size] = 0;
+        return heights;
+    }
+}
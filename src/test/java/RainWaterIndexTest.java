@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RainWaterIndexTest {
+
+    @Test
+    void queriesMatchARescanAfterEveryUpdate() {
+        Random random = new Random(18);
+        for (int round = 0; round < 40; round++) {
+            // sizes that aren't powers of two too, so the padding leaves are there
+            int heights[] = RainWaterReference.randomHeights(random, 1 + random.nextInt(50));
+            int n = heights.length;
+            RainWaterIndex index = new RainWaterIndex(heights);
+            for (int step = 0; step < 50; step++) {
+                int i = random.nextInt(n);
+                heights[i] = random.nextInt(100);
+                index.updateHeight(i, heights[i]);
+                String message = "round " + round + " step " + step;
+
+                assertEquals(heights[i], index.height(i), message);
+                assertEquals(RainWaterReference.efficientSolution(heights), index.totalWater(), message);
+                int lo = random.nextInt(n + 1);
+                int hi = lo + random.nextInt(n - lo + 1);
+                assertEquals(RainWaterReference.naiveSolution(heights, lo, hi), index.waterIn(lo, hi),
+                        message + ", [" + lo + ", " + hi + ")");
+            }
+        }
+    }
+
+    @Test
+    void everyRangeMatchesARescan() {
+        int heights[] = RainWaterReference.randomHeights(new Random(180), 37);
+        RainWaterIndex index = new RainWaterIndex(heights);
+        for (int lo = 0; lo <= heights.length; lo++) {
+            for (int hi = lo; hi <= heights.length; hi++) {
+                assertEquals(RainWaterReference.naiveSolution(heights, lo, hi), index.waterIn(lo, hi),
+                        "[" + lo + ", " + hi + ")");
+            }
+        }
+    }
+
+    @Test
+    void rejectsBadRanges() {
+        RainWaterIndex index = new RainWaterIndex(new int[] { 3, 0, 3 });
+        assertThrows(IllegalArgumentException.class, () -> index.waterIn(2, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.waterIn(0, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.updateHeight(3, 1));
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Random;
+
+// the tutorial's rainwater solutions, for the faster ones to be checked against
+final class RainWaterReference {
+
+    private RainWaterReference() {
+    }
+
+    // the tutorial's two pointers, adding up in a long
+    static long efficientSolution(int heights[]) {
+        long totalWater = 0;
+        int leftPointer = 0;
+        int rightPointer = heights.length - 1;
+        int leftBound = 0;
+        int rightBound = 0;
+        while (leftPointer < rightPointer) {
+            if (heights[leftPointer] <= heights[rightPointer]) {
+                leftBound = Math.max(heights[leftPointer], leftBound);
+                totalWater += leftBound - heights[leftPointer];
+                leftPointer++;
+            } else {
+                rightBound = Math.max(heights[rightPointer], rightBound);
+                totalWater += rightBound - heights[rightPointer];
+                rightPointer--;
+            }
+        }
+        return totalWater;
+    }
+
+    // the tutorial's naive solution on heights[lo ... hi) alone: for every bar, scan both ways for the highest bars
+    static long naiveSolution(int heights[], int lo, int hi) {
+        long totalWater = 0;
+        for (int i = lo; i < hi; i++) {
+            int leftBound = heights[i];
+            for (int j = lo; j < i; j++) {
+                leftBound = Math.max(leftBound, heights[j]);
+            }
+            int rightBound = heights[i];
+            for (int j = i + 1; j < hi; j++) {
+                rightBound = Math.max(rightBound, heights[j]);
+            }
+            totalWater += Math.min(leftBound, rightBound) - heights[i];
+        }
+        return totalWater;
+    }
+
+    static int[] randomHeights(Random random, int n) {
+        int heights[] = new int[n];
+        int maxHeight = 1 + random.nextInt(100);
+        for (int i = 0; i < n; i++) {
+            heights[i] = random.nextInt(maxHeight);
+        }
+        return heights;
+    }
+}
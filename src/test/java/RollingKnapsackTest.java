@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RollingKnapsackTest {
+
+    @Test
+    void matchesTheMatrix() {
+        Random random = new Random(1);
+        for (int round = 0; round < 300; round++) {
+            int items[][] = KnapsackReference.randomItems(random, random.nextInt(25), 30, 100);
+            int weightCap = random.nextInt(120);
+            assertEquals(KnapsackReference.matrixKnapSack(weightCap, items[0], items[1]),
+                    RollingKnapsack.knapSack(weightCap, items[0], items[1]), "round " + round);
+        }
+    }
+
+    @Test
+    void reconstructedItemsFitAndAddUp() {
+        Random random = new Random(10);
+        for (int round = 0; round < 300; round++) {
+            // up to 70 items, so the reconstruction recurses several levels deep
+            int items[][] = KnapsackReference.randomItems(random, random.nextInt(70), 30, 100);
+            int weights[] = items[0];
+            int values[] = items[1];
+            int weightCap = random.nextInt(120);
+            KnapsackSolution solution = RollingKnapsack.solve(weightCap, weights, values);
+
+            assertEquals(KnapsackReference.matrixKnapSack(weightCap, weights, values), solution.value(), "round " + round);
+            long valueSum = 0;
+            int previous = -1;
+            for (int item : solution.items()) {
+                assertTrue(item > previous, "round " + round);
+                previous = item;
+                valueSum += values[item];
+            }
+            assertEquals(solution.value(), valueSum, "round " + round);
+            assertTrue(solution.weight(weights) <= weightCap, "round " + round);
+        }
+    }
+
+    @Test
+    void zeroWeightItemsFitAnEmptyKnapsack() {
+        int weights[] = new int[] { 0, 3, 0, 0 };
+        int values[] = new int[] { 5, 9, 0, 2 };
+        assertEquals(7, RollingKnapsack.knapSack(0, weights, values));
+        KnapsackSolution solution = RollingKnapsack.solve(0, weights, values);
+        assertEquals(7, solution.value());
+        assertEquals(0, solution.weight(weights));
+    }
+}
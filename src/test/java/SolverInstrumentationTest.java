@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SolverInstrumentationTest {
+
+    private final int weights[] = new int[] { 31, 10, 20, 19, 4, 3, 6 };
+    private final int values[] = new int[] { 70, 20, 39, 37, 7, 5, 10 };
+    private final List<String> solves = new ArrayList<>();
+
+    @BeforeEach
+    void install() {
+        SolverInstrumentation.install(new SolverMetrics() {
+            @Override
+            public synchronized void knapsackSolved(String solver, int items, long capacity, long cellsFilled,
+                    long bytesAllocated, long nanos) {
+                solves.add(solver);
+            }
+        });
+    }
+
+    @AfterEach
+    void uninstall() {
+        SolverInstrumentation.install(null);
+    }
+
+    @Test
+    void everyEntryPointReportsOnceUnderItsOwnName() {
+        assertReports("rolling", () -> RollingKnapsack.knapSack(50, weights, values));
+        assertReports("rolling-items", () -> RollingKnapsack.solve(50, weights, values));
+        // below and above the sequential cutoff
+        assertReports("parallel", () -> new ParallelKnapsack().knapSack(50, weights, values));
+        assertReports("parallel", () -> new ParallelKnapsack(ForkJoinPool.commonPool(), 8, 1).knapSack(50, weights, values));
+        assertReports("vector", () -> VectorKnapsack.knapSack(50, weights, values));
+        assertReports("batch", () -> KnapsackBatch.knapSack(new int[] { 10, 50 }, weights, values));
+        assertReports("batch-items", () -> KnapsackBatch.solve(new int[] { 10, 50, 50 }, weights, values));
+        assertReports("pareto", () -> ParetoKnapsack.knapSack(50, weights, values));
+        assertReports("pareto-auto", () -> ParetoKnapsack.knapSackAuto(50, weights, values));
+        assertReports("branch-and-bound", () -> BranchAndBoundKnapsack.solve(50, weights, values));
+        assertReports("meet-in-the-middle", () -> MeetInTheMiddleKnapsack.solve(50, weights, values));
+
+        KnapsackSession session = new KnapsackSession(50);
+        assertReports("session-add", () -> session.add(31, 70));
+        assertReports("session-remove", () -> session.remove(0));
+    }
+
+    private void assertReports(String solver, Runnable solve) {
+        solves.clear();
+        solve.run();
+        assertEquals(List.of(solver), solves);
+    }
+}
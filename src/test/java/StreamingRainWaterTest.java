@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StreamingRainWaterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void chunksAddUpToTheTotalForEveryChunkSize() throws IOException {
+        Random random = new Random(16);
+        for (int round = 0; round < 40; round++) {
+            int heights[] = RainWaterReference.randomHeights(random, random.nextInt(60));
+            ByteOrder order = random.nextBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            Path file = write(heights, order);
+            long expected = RainWaterReference.efficientSolution(heights);
+            // chunk sizes that divide the file, don't, and are bigger than it
+            for (int chunkHeights = 1; chunkHeights <= heights.length + 2; chunkHeights++) {
+                String message = "round " + round + ", " + heights.length + " heights, chunks of " + chunkHeights;
+                Chunks mapped = new Chunks(heights.length);
+                assertEquals(expected, StreamingRainWater.totalWater(file, order, chunkHeights, mapped), message);
+                mapped.assertCoveredOnce(expected, message);
+
+                Chunks read = new Chunks(heights.length);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    assertEquals(expected, StreamingRainWater.totalWater(channel, order, chunkHeights, read), message);
+                }
+                read.assertCoveredOnce(expected, message);
+            }
+        }
+    }
+
+    @Test
+    void rejectsPartialHeightsAndBadChunks() throws IOException {
+        Path file = directory.resolve("partial.bin");
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5 });
+        assertThrows(IOException.class, () -> StreamingRainWater.totalWater(file, ByteOrder.LITTLE_ENDIAN));
+        Path empty = write(new int[0], ByteOrder.LITTLE_ENDIAN);
+        assertThrows(IllegalArgumentException.class,
+                () -> StreamingRainWater.totalWater(empty, ByteOrder.LITTLE_ENDIAN, 0, (first, count, water) -> { }));
+    }
+
+    private Path write(int heights[], ByteOrder order) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(heights.length * Integer.BYTES).order(order);
+        buffer.asIntBuffer().put(heights);
+        return Files.write(Files.createTempFile(directory, "heights", ".bin"), buffer.array());
+    }
+
+    // remembers how often every bar was reported, and the water reported in total
+    private static final class Chunks implements StreamingRainWater.ChunkListener {
+        private final int reported[];
+        private long water;
+
+        Chunks(int n) {
+            reported = new int[n];
+        }
+
+        @Override
+        public void chunkDone(long firstIndex, int count, long chunkWater) {
+            for (int i = 0; i < count; i++) {
+                reported[(int) firstIndex + i]++;
+            }
+            water += chunkWater;
+        }
+
+        void assertCoveredOnce(long expected, String message) {
+            assertEquals(expected, water, message);
+            for (int i = 0; i < reported.length; i++) {
+                assertEquals(1, reported[i], message + ", bar " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class VectorKnapsackTest {
+
+    @Test
+    void bothKernelsMatchTheMatrix() {
+        Random random = new Random(3);
+        RowKernel kernels[] = new RowKernel[] { new ScalarRowKernel(), RowKernel.best() };
+        for (int round = 0; round < 300; round++) {
+            int items[][] = KnapsackReference.randomItems(random, random.nextInt(25), 30, 100);
+            // capacities that aren't a multiple of any vector length, so the tail loop runs too
+            int weightCap = random.nextInt(150);
+            long expected = KnapsackReference.matrixKnapSack(weightCap, items[0], items[1]);
+            for (RowKernel kernel : kernels) {
+                assertEquals(expected, VectorKnapsack.knapSack(weightCap, items[0], items[1], kernel),
+                        "round " + round + ", " + kernel.getClass().getSimpleName());
+            }
+        }
+    }
+
+    @Test
+    void vectorKernelFillsTheSameRowAsTheScalarOne() {
+        // the tests run with --add-modules jdk.incubator.vector, so this is the vector kernel
+        RowKernel vector = RowKernel.best();
+        assertEquals("VectorRowKernel", vector.getClass().getSimpleName());
+        RowKernel scalar = new ScalarRowKernel();
+        Random random = new Random(30);
+        for (int round = 0; round < 300; round++) {
+            int weightCap = random.nextInt(200);
+            int previous[] = new int[weightCap + 1];
+            for (int weight = 0; weight <= weightCap; weight++) {
+                previous[weight] = random.nextInt(1_000);
+            }
+            // including items heavier than the whole knapsack
+            int itemWeight = random.nextInt(weightCap + 10);
+            int value = random.nextInt(100);
+            int expected[] = new int[weightCap + 1];
+            int actual[] = new int[weightCap + 1];
+            scalar.update(previous, expected, itemWeight, value, weightCap);
+            vector.update(previous, actual, itemWeight, value, weightCap);
+            assertArrayEquals(expected, actual, "round " + round);
+        }
+    }
+}